@@ -0,0 +1,257 @@
+package hamm;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+
+/**
+ * Approximate HAMM over a histogram of task sizes, for workloads too large to
+ * keep every task.
+ *
+ * Task sizes from 0 to maxSize are counted into equal width buckets, like a
+ * counting sort, and every bucket also keeps the sum of its sizes. Sizes of
+ * maxSize and above go to the last bucket. Memory is O(buckets) however many
+ * tasks are added.
+ *
+ * Scheduling then runs HAMM's decision on the buckets. The average of the
+ * remaining tasks is exact, because the sums are exact. Tasks at or below
+ * the average are counted with a Fenwick tree over the bucket counts, taking
+ * the bucket that holds the average as a whole when its own mean is at or
+ * below it. maxMin takes a task from the highest non-empty bucket and minMin
+ * from the lowest. The task taken is the bucket's mean size, so the bucket
+ * sums stay exact. Each task goes to the least loaded VM.
+ *
+ * With one bucket per size (buckets == maxSize) every decision is exactly
+ * HAMM's. With fewer buckets the schedule only says which bucket each VM gets
+ * tasks from. The loads are estimates made from bucket means.
+ *
+ * Usage: java hamm.BucketedHAMM [--tasks 1e6] [--vms 6,100] [--buckets 100,1000,100000] [--dist UNIFORM,BIMODAL]
+ *        [--seed 5555]
+ */
+public class BucketedHAMM {
+
+    /** Receives every decision: a task from bucket was taken, the largest kind if largest, and put on vm. */
+    public interface Listener {
+        void assigned(int bucket, boolean largest, int vm);
+    }
+
+    private final int maxSize;
+    private final int width;
+    private final long[] counts;
+    private final long[] sums;
+    private long taskCount;
+
+    public BucketedHAMM(int buckets, int maxSize) {
+        if (buckets < 1 || maxSize < 1) {
+            throw new IllegalArgumentException("need at least one bucket and a positive size range");
+        }
+        this.maxSize = maxSize;
+        width = (maxSize + buckets - 1) / buckets;
+        int bucketCount = (maxSize + width - 1) / width;
+        counts = new long[bucketCount];
+        sums = new long[bucketCount];
+    }
+
+    public int buckets() {
+        return counts.length;
+    }
+
+    /** Bucket that size is counted in. */
+    public int bucketOf(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("task size must not be negative: " + size);
+        }
+        return Math.min(size / width, counts.length - 1);
+    }
+
+    public void add(int size) {
+        int bucket = bucketOf(size);
+        counts[bucket]++;
+        sums[bucket] += size;
+        taskCount++;
+    }
+
+    public void addAll(PrimitiveIterator.OfInt sizes) {
+        while (sizes.hasNext()) {
+            add(sizes.nextInt());
+        }
+    }
+
+    public long taskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Runs HAMM on the histogram and returns the estimated load of every VM.
+     * The histogram itself is left as it is, so it can be scheduled again.
+     */
+    public long[] schedule(int vmCount, Listener listener) {
+        int bucketCount = counts.length;
+        long[] remaining = counts.clone();
+        long[] remainingSums = sums.clone();
+        long[] tree = new long[bucketCount + 1];
+        for (int b = 0; b < bucketCount; b++) {
+            fenwickAdd(tree, b, remaining[b]);
+        }
+        long left = taskCount;
+        long total = 0;
+        for (long sum : sums) {
+            total += sum;
+        }
+        int low = 0;
+        int high = bucketCount - 1;
+        VmLoadIndex loads = new VmLoadIndex(vmCount);
+
+        while (left > 0) {
+            double average = (double) total / left;
+            int bucket = (int) Math.min(Math.max(average, 0) / width, bucketCount - 1);
+            long lower = bucket > 0 ? fenwickSum(tree, bucket - 1) : 0;
+            if (remaining[bucket] > 0 && remainingSums[bucket] <= average * remaining[bucket]) {
+                lower += remaining[bucket];
+            }
+            long higher = left - lower;
+
+            boolean largest = lower >= higher;
+            int from;
+            if (largest) {
+                while (remaining[high] == 0) {
+                    high--;
+                }
+                from = high;
+            } else {
+                while (remaining[low] == 0) {
+                    low++;
+                }
+                from = low;
+            }
+
+            // the bucket's mean, rounded; the last task of a bucket takes what is left of its sum
+            long size = remaining[from] == 1
+                    ? remainingSums[from]
+                    : (remainingSums[from] + remaining[from] / 2) / remaining[from];
+            remaining[from]--;
+            remainingSums[from] -= size;
+            fenwickAdd(tree, from, -1);
+            total -= size;
+            left--;
+
+            int vm = loads.leastLoaded();
+            loads.addLoad(vm, size);
+            if (listener != null) {
+                listener.assigned(from, largest, vm);
+            }
+        }
+
+        long[] result = new long[vmCount];
+        for (int vm = 0; vm < vmCount; vm++) {
+            result[vm] = loads.load(vm);
+        }
+        return result;
+    }
+
+    private static void fenwickAdd(long[] tree, int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Sum of the counts of buckets 0 to index. */
+    private static long fenwickSum(long[] tree, int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Turns the bucket decisions into a real schedule of taskSizes: a largest
+     * pick from a bucket takes its largest unused task, a smallest pick its
+     * smallest. This needs every task, so it is only for measuring how good
+     * the approximate decisions are.
+     */
+    public Schedule realize(int[] taskSizes, int vmCount) {
+        int[] sorted = taskSizes.clone();
+        Arrays.sort(sorted);
+        int bucketCount = counts.length;
+        int[] lowNext = new int[bucketCount];
+        int[] highNext = new int[bucketCount];
+        int position = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            lowNext[b] = position;
+            while (position < sorted.length && bucketOf(sorted[position]) == b) {
+                position++;
+            }
+            highNext[b] = position;
+        }
+
+        Schedule schedule = new Schedule(vmCount, taskSizes.length);
+        schedule(vmCount, (bucket, largest, vm) ->
+                schedule.assign(largest ? sorted[--highNext[bucket]] : sorted[lowNext[bucket]++], vm));
+        return schedule;
+    }
+
+    /**
+     * Reports, per distribution, VM count and bucket count, the makespan of
+     * the bucket decisions against exact HAMM: as estimated from bucket means
+     * and as realized on the actual tasks.
+     */
+    public static void main(String[] args) {
+        int taskCount = 1000000;
+        int[] vmCounts = {6, 100};
+        int[] bucketCounts = {100, 1000, TaskDistribution.MAX_TASK_SIZE};
+        TaskDistribution[] distributions = TaskDistribution.values();
+        long seed = 5555;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    taskCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--vms":
+                    vmCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--buckets":
+                    bucketCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--dist":
+                    distributions = SweepRunner.parseEnums(value, TaskDistribution.class);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-13s %6s %8s %10s %14s %12s %12s %10s",
+                "Distribution", "VMs", "Buckets", "memory KB", "exact", "estimated", "realized", "ms"));
+        for (TaskDistribution distribution : distributions) {
+            int[] tasks = distribution.generate(taskCount, seed);
+            for (int vmCount : vmCounts) {
+                long exact = ParallelHAMM.maxLoad(HAMMSimulation.HAMM(tasks, vmCount));
+                for (int buckets : bucketCounts) {
+                    BucketedHAMM hamm = new BucketedHAMM(buckets, TaskDistribution.MAX_TASK_SIZE);
+                    long start = System.nanoTime();
+                    for (int size : tasks) {
+                        hamm.add(size);
+                    }
+                    long[] loads = hamm.schedule(vmCount, null);
+                    double millis = (System.nanoTime() - start) / 1e6;
+                    long estimated = 0;
+                    for (long load : loads) {
+                        estimated = Math.max(estimated, load);
+                    }
+                    long realized = ParallelHAMM.maxLoad(hamm.realize(tasks, vmCount));
+                    // counts and sums, their working copies and the Fenwick tree
+                    double memoryKb = 5.0 * 8 * hamm.buckets() / 1024;
+                    System.out.println(String.format(Locale.ROOT, "%-13s %6d %8d %10.1f %14d %+11.4f%% %+11.4f%% %10.1f",
+                            distribution, vmCount, hamm.buckets(), memoryKb, exact,
+                            100.0 * (estimated - exact) / exact, 100.0 * (realized - exact) / exact, millis));
+                }
+            }
+        }
+    }
+}
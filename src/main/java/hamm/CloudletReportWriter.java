@@ -0,0 +1,84 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes finished cloudlets as CSV, with the columns of printCloudletList.
+ *
+ * printCloudletList goes through Log.print several times per cloudlet and a
+ * DecimalFormat per time. Here each row is appended to one reused
+ * StringBuilder, times are rounded to two decimals with plain arithmetic, and
+ * the builder is handed to a buffered writer in large blocks. This keeps runs
+ * with millions of cloudlets from spending their time on output.
+ */
+public class CloudletReportWriter {
+
+    private static final int FLUSH_CHARS = 1 << 16;
+
+    private final StringBuilder row = new StringBuilder(FLUSH_CHARS + 256);
+
+    /** Writes list to path. */
+    public void write(List<? extends Cloudlet> list, Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(list, out);
+        }
+    }
+
+    /**
+     * Writes list to out, which is flushed but not closed.
+     */
+    public void write(List<? extends Cloudlet> list, Writer out) throws IOException {
+        row.setLength(0);
+        row.append("cloudlet_id,status,datacenter_id,vm_id,cpu_time,start_time,finish_time\n");
+        for (Cloudlet cloudlet : list) {
+            row.append(cloudlet.getCloudletId()).append(',')
+                    .append(cloudlet.getCloudletStatus() == Cloudlet.SUCCESS ? "SUCCESS" : cloudlet.getCloudletStatusString())
+                    .append(',').append(cloudlet.getResourceId())
+                    .append(',').append(cloudlet.getVmId()).append(',');
+            appendTime(cloudlet.getActualCPUTime());
+            row.append(',');
+            appendTime(cloudlet.getExecStartTime());
+            row.append(',');
+            appendTime(cloudlet.getFinishTime());
+            row.append('\n');
+            if (row.length() >= FLUSH_CHARS) {
+                out.append(row);
+                row.setLength(0);
+            }
+        }
+        out.append(row);
+        out.flush();
+    }
+
+    /** Writes list to standard output. */
+    public void print(List<? extends Cloudlet> list) throws IOException {
+        write(list, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), FLUSH_CHARS));
+    }
+
+    private void appendTime(double time) {
+        if (Double.isNaN(time) || Double.isInfinite(time) || Math.abs(time) >= 1e15) {
+            row.append(time);
+            return;
+        }
+        long hundredths = Math.round(time * 100);
+        if (hundredths < 0) {
+            row.append('-');
+            hundredths = -hundredths;
+        }
+        row.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            row.append('0');
+        }
+        row.append(fraction);
+    }
+}
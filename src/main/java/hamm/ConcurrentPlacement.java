@@ -0,0 +1,201 @@
+package hamm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Places tasks on the least loaded VM from many threads at once.
+ *
+ * The VMs are split into stripes, vm going to stripe vm % stripes. Each stripe
+ * keeps its VMs in a VmLoadIndex behind its own lock. Each stripe publishes
+ * the load of its least loaded VM in an atomic array. A placement scans
+ * those published minimums without locking, locks the stripe holding the
+ * least loaded VM and adds the task there. If another thread holds that
+ * stripe, the second best stripe is tried before waiting. Threads placing at
+ * the same time mostly end up on different stripes.
+ *
+ * Placement is exact with one stripe, or with one thread placing at a time:
+ * the task goes to the least loaded VM, lowest index on ties, like addToMinVM.
+ * With more stripes placement is approximate under contention. The scan reads
+ * minimums other threads are changing, and a stripe's minimum load and its VM
+ * are two separate atomics, so the scan can pair one VM with another's load.
+ * A busy best stripe also sends the task to the second best. No bound holds
+ * on how far from the least loaded VM a task can land. What does hold is that
+ * each task goes to the least loaded VM of the stripe it locked, and that the
+ * load accounting stays exact, which verify() checks.
+ *
+ * Per-VM loads are mirrored in an atomic array, so they can be read at any
+ * time without locking. Locks are ReentrantLocks so that virtual threads
+ * waiting on a stripe do not pin their carrier thread.
+ */
+public class ConcurrentPlacement {
+
+    // published minimums of neighbouring stripes sit on different cache lines
+    private static final int PAD = 8;
+
+    private final int vmCount;
+    private final int stripes;
+    private final ReentrantLock[] locks;
+    private final VmLoadIndex[] indexes;   // local vm i of stripe s is vm i * stripes + s
+    private final AtomicLongArray stripeMinLoad;
+    private final AtomicLongArray stripeMinVm;
+    private final AtomicLongArray loads;
+
+    public ConcurrentPlacement(int vmCount, int stripes) {
+        if (vmCount < 1) {
+            throw new IllegalArgumentException("need at least one VM: " + vmCount);
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("need at least one stripe: " + stripes);
+        }
+        this.vmCount = vmCount;
+        this.stripes = Math.min(stripes, vmCount);
+        locks = new ReentrantLock[this.stripes];
+        indexes = new VmLoadIndex[this.stripes];
+        stripeMinLoad = new AtomicLongArray(this.stripes * PAD);
+        stripeMinVm = new AtomicLongArray(this.stripes * PAD);
+        loads = new AtomicLongArray(vmCount);
+        for (int s = 0; s < this.stripes; s++) {
+            locks[s] = new ReentrantLock();
+            indexes[s] = new VmLoadIndex((vmCount - s + this.stripes - 1) / this.stripes);
+            stripeMinVm.set(s * PAD, s);
+        }
+    }
+
+    /**
+     * A stripe count that keeps contention low for the machine's cores.
+     */
+    public static int defaultStripes(int vmCount) {
+        return Math.min(vmCount, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public int vmCount() {
+        return vmCount;
+    }
+
+    public int stripes() {
+        return stripes;
+    }
+
+    /** Current load of vm, read without locking. */
+    public long load(int vm) {
+        return loads.get(vm);
+    }
+
+    /**
+     * Adds a task of size to the least loaded VM and returns that VM.
+     */
+    public int place(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("task size must not be negative: " + size);
+        }
+        int best = 0;
+        int second = -1;
+        for (int s = 1; s < stripes; s++) {
+            if (lessLoaded(s, best)) {
+                second = best;
+                best = s;
+            } else if (second < 0 || lessLoaded(s, second)) {
+                second = s;
+            }
+        }
+
+        int stripe = best;
+        if (!locks[best].tryLock()) {
+            if (second >= 0 && locks[second].tryLock()) {
+                stripe = second;
+            } else {
+                locks[best].lock();
+            }
+        }
+        try {
+            VmLoadIndex index = indexes[stripe];
+            int local = index.leastLoaded();
+            index.addLoad(local, size);
+            int vm = local * stripes + stripe;
+            loads.addAndGet(vm, size);
+            publish(stripe);
+            return vm;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Places a batch of tasks in HAMM's order: the largest or smallest
+     * remaining task of the batch next, by the same rule as HAMM. Each goes to
+     * the least loaded VM at the time it is placed. Returns the batch's part of
+     * the schedule, tasks in the order they were placed.
+     */
+    public Schedule placeAll(int[] sizes) {
+        Schedule placed = new Schedule(vmCount, sizes.length);
+        TaskPool pool = new TaskPool(sizes);
+        while (!pool.isEmpty()) {
+            double average = pool.average();
+            int lower = pool.countAtMost(average);
+            int higher = pool.size() - lower;
+
+            int value = lower >= higher ? pool.pollMax() : pool.pollMin();
+            placed.assign(value, place(value));
+        }
+        return placed;
+    }
+
+    /**
+     * Takes a finished task of size off vm again.
+     */
+    public void release(int vm, int size) {
+        int stripe = vm % stripes;
+        locks[stripe].lock();
+        try {
+            indexes[stripe].addLoad(vm / stripes, -size);
+            loads.addAndGet(vm, -size);
+            publish(stripe);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Checks, with every stripe locked, that each stripe's index, its
+     * published minimum and the atomic loads all agree.
+     */
+    public void verify() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            for (int s = 0; s < stripes; s++) {
+                VmLoadIndex index = indexes[s];
+                for (int local = 0; local < index.size(); local++) {
+                    int vm = local * stripes + s;
+                    if (index.load(local) != loads.get(vm)) {
+                        throw new IllegalStateException("VM " + vm + " has load " + index.load(local)
+                                + " in its stripe but " + loads.get(vm) + " in the atomic loads");
+                    }
+                }
+                int least = index.leastLoaded();
+                if (stripeMinLoad.get(s * PAD) != index.load(least) || stripeMinVm.get(s * PAD) != least * stripes + s) {
+                    throw new IllegalStateException("Stripe " + s + " published a stale minimum");
+                }
+            }
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean lessLoaded(int a, int b) {
+        long loadA = stripeMinLoad.get(a * PAD);
+        long loadB = stripeMinLoad.get(b * PAD);
+        return loadA < loadB || (loadA == loadB && stripeMinVm.get(a * PAD) < stripeMinVm.get(b * PAD));
+    }
+
+    private void publish(int stripe) {
+        VmLoadIndex index = indexes[stripe];
+        int local = index.leastLoaded();
+        stripeMinVm.set(stripe * PAD, local * stripes + stripe);
+        stripeMinLoad.set(stripe * PAD, index.load(local));
+    }
+}
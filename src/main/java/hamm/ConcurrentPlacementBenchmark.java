@@ -0,0 +1,204 @@
+package hamm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and stress run of ConcurrentPlacement for a range of thread counts.
+ *
+ * For each thread count every thread first places tasks as fast as it can for
+ * --seconds, and the total placements per second are reported with the speedup
+ * over the first thread count. Then the stress run has every thread place
+ * --tasks tasks and take every other one off again. The loads must add up to
+ * exactly what is still placed, and every stripe must agree with the atomic
+ * loads. Before all that, a single stripe placement on one thread is checked to
+ * pick exactly the VMs a sequential VmLoadIndex picks.
+ *
+ * Usage: java hamm.ConcurrentPlacementBenchmark [--threads 1,2,4,8] [--vms 1000] [--stripes 32]
+ *        [--batch 0] [--seconds 2] [--tasks 1e5] [--dist UNIFORM]
+ */
+public class ConcurrentPlacementBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] threadCounts = {1, 2, 4, 8};
+        int vmCount = 1000;
+        int stripes = 0;
+        int batch = 0;
+        double seconds = 2;
+        int tasks = 100000;
+        TaskDistribution distribution = TaskDistribution.UNIFORM;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--threads":
+                    threadCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--vms":
+                    vmCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--stripes":
+                    stripes = Integer.parseInt(value);
+                    break;
+                case "--batch":
+                    batch = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--seconds":
+                    seconds = Double.parseDouble(value);
+                    break;
+                case "--tasks":
+                    tasks = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--dist":
+                    distribution = TaskDistribution.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (stripes == 0) {
+            stripes = ConcurrentPlacement.defaultStripes(vmCount);
+        }
+
+        checkExact(vmCount, tasks, distribution);
+
+        System.out.println(String.format(Locale.ROOT, "%d VMs, %d stripes, %s, %s",
+                vmCount, stripes, distribution, batch > 0 ? "HAMM batches of " + batch : "single placements"));
+        System.out.println(String.format(Locale.ROOT, "%-8s %14s %8s %12s %14s %8s",
+                "Threads", "placements/s", "speedup", "ns/op/thread", "max-min load", "stress"));
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            ConcurrentPlacement placement = new ConcurrentPlacement(vmCount, stripes);
+            double throughput = throughput(placement, threads, distribution, batch, seconds);
+            if (baseline == 0) {
+                baseline = throughput;
+            }
+            long spread = stress(vmCount, stripes, threads, tasks, distribution);
+            System.out.println(String.format(Locale.ROOT, "%-8d %14.0f %8.2f %12.1f %14d %8s",
+                    threads, throughput, throughput / baseline, threads * 1e9 / throughput, spread, "ok"));
+        }
+    }
+
+    private static double throughput(ConcurrentPlacement placement, int threads, TaskDistribution distribution,
+                                     int batch, double seconds) throws InterruptedException {
+        AtomicLong placed = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] window = new long[2];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int[] sizes = distribution.generate(1 << 16, 5555 + t);
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                int next = 0;
+                int[] chunk = new int[Math.max(batch, 1)];
+                while (System.nanoTime() < window[1]) {
+                    if (batch > 0) {
+                        for (int j = 0; j < batch; j++) {
+                            chunk[j] = sizes[next++ & (sizes.length - 1)];
+                        }
+                        count += placement.placeAll(chunk).taskCount();
+                    } else {
+                        for (int j = 0; j < 256; j++) {
+                            placement.place(sizes[next++ & (sizes.length - 1)]);
+                        }
+                        count += 256;
+                    }
+                }
+                placed.addAndGet(count);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        window[0] = System.nanoTime();
+        window[1] = window[0] + (long) (seconds * 1e9);
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - window[0]) / 1e9;
+        placement.verify();
+        return placed.get() / elapsed;
+    }
+
+    /**
+     * Places and releases tasks from every thread, checks the invariants and
+     * returns the spread between the most and least loaded VM.
+     */
+    private static long stress(int vmCount, int stripes, int threads, int tasks, TaskDistribution distribution)
+            throws InterruptedException {
+        ConcurrentPlacement placement = new ConcurrentPlacement(vmCount, stripes);
+        long[] kept = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            int[] sizes = distribution.generate(tasks, 7 + t);
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < sizes.length; i++) {
+                    int vm = placement.place(sizes[i]);
+                    if (i % 2 == 1) {
+                        placement.release(vm, sizes[i]);
+                    } else {
+                        kept[thread] += sizes[i];
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        placement.verify();
+        long expected = 0;
+        for (int t = 0; t < threads; t++) {
+            expected += kept[t];
+        }
+        long total = 0;
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        for (int vm = 0; vm < vmCount; vm++) {
+            total += placement.load(vm);
+            max = Math.max(max, placement.load(vm));
+            min = Math.min(min, placement.load(vm));
+        }
+        if (total != expected) {
+            throw new IllegalStateException("VMs hold " + total + " but " + expected + " was placed and kept");
+        }
+        return max - min;
+    }
+
+    /**
+     * Places and releases tasks with one stripe on one thread, which must pick
+     * the same VM as addToMinVM every time.
+     */
+    private static void checkExact(int vmCount, int tasks, TaskDistribution distribution) {
+        ConcurrentPlacement placement = new ConcurrentPlacement(vmCount, 1);
+        VmLoadIndex loads = new VmLoadIndex(vmCount);
+        int[] sizes = distribution.generate(tasks, 11);
+        for (int i = 0; i < sizes.length; i++) {
+            int expected = loads.leastLoaded();
+            int vm = placement.place(sizes[i]);
+            if (vm != expected) {
+                throw new IllegalStateException("Task " + i + " went to VM " + vm + " instead of VM " + expected);
+            }
+            loads.addLoad(vm, sizes[i]);
+            if (i % 3 == 2) {
+                placement.release(vm, sizes[i]);
+                loads.addLoad(vm, -sizes[i]);
+            }
+        }
+        placement.verify();
+    }
+}
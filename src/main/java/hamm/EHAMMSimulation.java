@@ -0,0 +1,406 @@
+package hamm;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A simple example showing how to create
+ * a datacenter with two hosts and run two
+ * cloudlets on it. The cloudlets run in
+ * VMs with different MIPS requirements.
+ * The cloudlets will take different time
+ * to complete the execution depending on
+ * the requested VM performance.
+ */
+public class EHAMMSimulation extends HAMMSimulation {
+
+    /**
+     * The cloudlet list.
+     */
+    private static List<Cloudlet> cloudletList;
+
+    /**
+     * The vmlist.
+     */
+    private static List<Vm> vmlist;
+
+    /**
+     * Creates main() to run this example
+     *
+     * Optional arguments: number of tasks, number of VMs, seed and task size
+     * distribution, defaulting to 100, 6, 5555 and UNIFORM. With
+     * -Dhamm.topology=spec.txt the datacenter and VMs come from a Topology
+     * spec instead, the number of VMs is ignored and the tasks are scheduled
+     * with SPEED_EHAMM, which balances finish times over the VMs' speeds. With
+     * -Dhamm.workload=trace.bin the tasks are read from a WorkloadFile instead,
+     * all of them unless a number of tasks is given. With
+     * -Dhamm.quiet=true the schedule and per cloudlet output are skipped.
+     * -Dhamm.cloudlets=file.csv writes the cloudlets to a CSV file instead of
+     * the log, and -Dhamm.metrics=prefix writes the run's metrics to
+     * prefix.json and prefix.csv. -Dhamm.tailWeight=0.5 schedules with a
+     * TailObjective that gives completion times that weight, on raw task sizes
+     * even with a topology. -Dhamm.crossCheck=true compares MakespanEvaluator's
+     * analytic times with the simulated ones and prints whether they agree.
+     */
+    public static void main(String[] args) {
+
+        Log.printLine("Starting EHAMM Simulation...");
+
+        boolean quiet = Boolean.getBoolean("hamm.quiet");
+        if (quiet) {
+            Log.disable();
+        }
+
+        try {
+            // First step: Initialize the CloudSim package. It should be called
+            // before creating any entities.
+            int num_user = 1;   // number of cloud users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            // Second step: Create Datacenters
+            //Datacenters are the resource providers in CloudSim. We need at list one of them to run a CloudSim simulation
+            RunMetrics metrics = new RunMetrics();
+            String topologySpec = System.getProperty("hamm.topology");
+            Topology topology = topologySpec != null ? Topology.load(Paths.get(topologySpec)) : null;
+            metrics.begin("topology");
+            @SuppressWarnings("unused")
+            Datacenter datacenter0 = topology != null ? topology.createDatacenter("Datacenter_0") : createDatacenter("Datacenter_0");
+            metrics.end("topology");
+
+            //Third step: Create Broker
+            // a topology can mix VM speeds, so its tasks are balanced on finish time
+            String tailWeight = System.getProperty("hamm.tailWeight");
+            HAMMBroker broker = createBroker(topology != null && tailWeight == null
+                    ? SchedulingAlgorithm.SPEED_EHAMM : SchedulingAlgorithm.EHAMM);
+            int brokerId = broker.getId();
+            broker.setMetrics(metrics);
+
+            //Fourth step: Create one virtual machine
+            vmlist = new ArrayList<Vm>();
+
+            //VM description
+            int vmCount = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+            int mips = 100;
+            long size = 10000; //image size (MB)
+            int ram = 500; //vm memory (MB)
+            long bw = 1000;
+            int pesNumber = 1; //number of cpus
+            String vmm = "Xen"; //VMM name
+
+            metrics.begin("topology");
+            if (topology != null) {
+                vmlist.addAll(topology.createVms(brokerId));
+                vmCount = vmlist.size();
+            } else {
+                //create VMs and add to our VM list
+                for (int i = 1; i <= vmCount; i++) {
+                    Vm vm = new Vm(i, brokerId, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerTimeShared());
+                    vmlist.add(vm);
+                }
+            }
+            metrics.end("topology");
+
+            //submit vm list to the broker
+            broker.submitVmList(vmlist);
+            if (tailWeight != null) {
+                broker.setObjective(new TailObjective(Double.parseDouble(tailWeight), TailObjective.sharingOf(vmlist)));
+            }
+
+
+            //Fifth step: Create two Cloudlets
+            cloudletList = new ArrayList<Cloudlet>();
+
+            //Cloudlet properties
+            long fileSize = 300;
+            long outputSize = 300;
+            UtilizationModel utilizationModel = new UtilizationModelFull();
+
+            // generate task sizes
+            int numTasks = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 5555;
+            TaskDistribution distribution = args.length > 3 ? TaskDistribution.valueOf(args[3]) : TaskDistribution.UNIFORM;
+            String workload = System.getProperty("hamm.workload");
+            int[] tasks = workload != null
+                    ? WorkloadFile.open(Paths.get(workload)).readInts(args.length > 0 ? numTasks : Long.MAX_VALUE)
+                    : distribution.generate(numTasks, seed);
+            numTasks = tasks.length;
+
+            //Next, we create one cloudlet per task, cloudlet i having task i's size
+            metrics.begin("cloudlets");
+            for(int task = 0; task < tasks.length; task++){
+                Cloudlet cloudlet = new Cloudlet(task, tasks[task], pesNumber, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+                cloudlet.setUserId(brokerId);
+                cloudletList.add(cloudlet);
+            }
+            metrics.end("cloudlets");
+
+            //The broker runs HAMM and the EHAMM rescheduling once the VMs exist and binds the cloudlets to them
+            broker.submitCloudletList(cloudletList);
+
+            metrics.begin("simulation");
+            CloudSim.startSimulation();
+            metrics.end("simulation");
+
+
+            // Final step: Print results when simulation is over
+            List<Cloudlet> newList = broker.getCloudletReceivedList();
+
+            CloudSim.stopSimulation();
+
+            Schedule vms = broker.getSchedule();
+            String cloudletReport = System.getProperty("hamm.cloudlets");
+            if (cloudletReport != null) {
+                new CloudletReportWriter().write(newList, Paths.get(cloudletReport));
+            } else if (!quiet) {
+                System.out.println(vms);
+                printCloudletList(newList);
+            }
+
+            MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(vms, broker.getScheduledVms(), pesNumber);
+            if (Boolean.getBoolean("hamm.crossCheck")) {
+                // reported, not thrown, so the run's results below still get printed
+                try {
+                    evaluator.crossCheck(newList, 0.01);
+                    System.out.println("Cross-check: analytic times agree with CloudSim");
+                } catch (IllegalStateException e) {
+                    System.out.println("Cross-check failed: " + e.getMessage());
+                }
+            }
+            System.out.println("Makespan: " + evaluator.makespan());
+
+            System.out.println("Load Variance: " + calculateLoadBalance(vms));
+
+            metrics.record(vms, evaluator);
+            if (!quiet) {
+                metrics.print(System.out);
+            } else {
+                // metrics.print already includes them
+                System.out.println("Completion p50/p95/p99: " + metrics.completionPercentile(50) + " / "
+                        + metrics.completionPercentile(95) + " / " + metrics.completionPercentile(99));
+            }
+            String metricsPrefix = System.getProperty("hamm.metrics");
+            if (metricsPrefix != null) {
+                metrics.writeJson(Paths.get(metricsPrefix + ".json"));
+                metrics.writeCsv(Paths.get(metricsPrefix + ".csv"));
+            }
+
+            // one machine readable line for ReplicationRunner
+            System.out.println("Result,EHAMM," + numTasks + "," + vmCount + "," + seed + "," + distribution + ","
+                    + simulatedMakespan(newList) + "," + metrics.loadVariance() + "," + newList.size());
+
+            Log.printLine("EHAMM Simulation finished!");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Nested list form of reschedule(Schedule). Machines come back in their
+     * original order.
+     */
+    public static List<List<Integer>> reschedule(List<List<Integer>> vms) {
+        return reschedule(Schedule.fromLists(vms)).toLists();
+    }
+
+    /**
+     * Rebalances vms in place and returns it. Every vm keeps its index.
+     *
+     * Loads and task counts come from the schedule, the smallest task of each
+     * machine from a per-machine heap, and the high and low load machines are
+     * ordered by task count in VmLoadIndex heaps, so each move costs O(log n).
+     */
+    public static Schedule reschedule(Schedule vms) {
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        long accepted = 0;
+        long rejected = 0;
+        int vmCount = vms.vmCount();
+        boolean[] highLoad = highAndLowSplit(vms);
+        TaskHeaps machineTasks = new TaskHeaps(vms);
+
+        // high load machines keyed by minus their task count, so the machine with the most
+        // tasks comes first and ties go to the lowest vm, as Collections.max did
+        VmLoadIndex highLoadIndex = VmLoadIndex.empty(vmCount);
+        // low load machines indexed by their position in lowLoad and keyed by task count,
+        // so ties go to the machine that joined lowLoad first, as Collections.min did
+        VmLoadIndex lowLoadIndex = VmLoadIndex.empty(vmCount);
+        int[] lowLoad = new int[vmCount];
+        int lowLoadCount = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            if (highLoad[vm]) {
+                highLoadIndex.insert(vm, -vms.taskCount(vm));
+            } else {
+                lowLoad[lowLoadCount] = vm;
+                lowLoadIndex.insert(lowLoadCount++, vms.taskCount(vm));
+            }
+        }
+
+        /*
+        Rescheduling takes the smallest tasks from the largest machines and attempts to move them
+        to the smallest load machines.
+        */
+        while (!highLoadIndex.isEmpty()) {
+            int highLoadMachine = highLoadIndex.leastLoaded();
+            boolean move = false;
+            int smallestTaskIndex = -1;
+            int smallestLoadSlot = lowLoadIndex.leastLoaded();
+            int smallestLoadMachine = lowLoad[smallestLoadSlot];
+
+            // nothing can be moved off an empty machine
+            if (vms.taskCount(highLoadMachine) > 0) {
+                smallestTaskIndex = machineTasks.peekMin(highLoadMachine);
+                int smallestTask = vms.taskSize(smallestTaskIndex);
+
+                long smallestLoadMachineSize = vms.load(smallestLoadMachine);
+                long highLoadMachineSize = vms.load(highLoadMachine);
+                long difference = highLoadMachineSize - smallestLoadMachineSize;
+
+                long differenceAfterRescheduling = (highLoadMachineSize - smallestTask) - (smallestLoadMachineSize + smallestTask);
+
+                // if moving the task results in a smaller difference in overall loads, then move them
+                move = Math.abs(difference) > Math.abs(differenceAfterRescheduling);
+                if (!move) {
+                    rejected++;
+                }
+            }
+
+            // if not, remove the current machine from our list of high load machines
+            if (move) {
+                accepted++;
+                machineTasks.pollMin(highLoadMachine);
+                machineTasks.add(smallestLoadMachine, smallestTaskIndex);
+                vms.move(smallestTaskIndex, smallestLoadMachine);
+                highLoadIndex.addLoad(highLoadMachine, 1);
+                lowLoadIndex.addLoad(smallestLoadSlot, 1);
+            } else {
+                highLoadIndex.remove(highLoadMachine);
+                lowLoad[lowLoadCount] = highLoadMachine;
+                lowLoadIndex.insert(lowLoadCount++, vms.taskCount(highLoadMachine));
+            }
+        }
+        event.record("reschedule", vmCount, 0, accepted, rejected,
+                highLoadIndex.comparisons() + lowLoadIndex.comparisons());
+        return vms;
+    }
+
+    /**
+     * Speed aware reschedule for VMs of different speeds. Rebalances vms in place
+     * and returns it.
+     *
+     * Machines whose expected finish time (load over MIPS times PEs) is above the
+     * average are high load. The smallest task of the high load machine that
+     * finishes last is offered to the low load machine that would finish it
+     * earliest. The move is kept when it shrinks the gap between the two finish
+     * times, the same rule reschedule(Schedule) applies to raw loads, and the
+     * receiving machine still finishes before the high load machine did;
+     * otherwise the high load machine is retired.
+     */
+    public static Schedule reschedule(Schedule vms, List<? extends Vm> vmList) {
+        return reschedule(vms, capacities(vmList));
+    }
+
+    /**
+     * Speed aware reschedule on VMs given by their capacities, see
+     * HAMMSimulation.capacities(List).
+     */
+    public static Schedule reschedule(Schedule vms, double[] capacities) {
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        long accepted = 0;
+        long rejected = 0;
+        int vmCount = vms.vmCount();
+        TaskHeaps machineTasks = new TaskHeaps(vms);
+
+        double averageFinish = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            averageFinish += vms.load(vm) / capacities[vm];
+        }
+        averageFinish /= vmCount;
+
+        VmSpeedIndex highLoad = VmSpeedIndex.emptyLatestFirst(capacities);
+        VmSpeedIndex lowLoad = VmSpeedIndex.emptyEarliestFirst(capacities);
+        for (int vm = 0; vm < vmCount; vm++) {
+            if (vms.load(vm) / capacities[vm] > averageFinish) {
+                highLoad.insert(vm, vms.load(vm));
+            } else {
+                lowLoad.insert(vm, vms.load(vm));
+            }
+        }
+
+        while (!highLoad.isEmpty()) {
+            int highLoadMachine = highLoad.latestFinish();
+            if (vms.taskCount(highLoadMachine) == 0) {
+                // a slow machine can hand its last task to a much faster one
+                highLoad.remove(highLoadMachine);
+                lowLoad.insert(highLoadMachine, 0);
+                continue;
+            }
+            int smallestTaskIndex = machineTasks.peekMin(highLoadMachine);
+            int smallestTask = vms.taskSize(smallestTaskIndex);
+            int fastestMachine = lowLoad.earliestFinish(smallestTask);
+
+            double highFinish = highLoad.finishTime(highLoadMachine);
+            double fastestFinishAfter = (vms.load(fastestMachine) + smallestTask) / capacities[fastestMachine];
+            double difference = highFinish - lowLoad.finishTime(fastestMachine);
+            double differenceAfterRescheduling = (vms.load(highLoadMachine) - smallestTask) / capacities[highLoadMachine]
+                    - fastestFinishAfter;
+
+            // on identical machines the first test already implies the second, with mixed speeds
+            // the receiving machine could otherwise end up finishing after the high load machine did
+            if (Math.abs(difference) > Math.abs(differenceAfterRescheduling) && fastestFinishAfter < highFinish) {
+                accepted++;
+                machineTasks.pollMin(highLoadMachine);
+                machineTasks.add(fastestMachine, smallestTaskIndex);
+                vms.move(smallestTaskIndex, fastestMachine);
+                highLoad.addLoad(highLoadMachine, -smallestTask);
+                lowLoad.addLoad(fastestMachine, smallestTask);
+            } else {
+                rejected++;
+                highLoad.remove(highLoadMachine);
+                lowLoad.insert(highLoadMachine, vms.load(highLoadMachine));
+            }
+        }
+        event.record("reschedule", vmCount, 0, accepted, rejected,
+                highLoad.scannedClasses() + lowLoad.scannedClasses());
+        return vms;
+    }
+
+    /**
+     * Splits the machines by their average task size. Machines below the overall
+     * average are high load, the rest low load.
+     */
+    static boolean[] highAndLowSplit(Schedule vms) {
+        double[] averages = new double[vms.vmCount()];
+        for (int vm = 0; vm < averages.length; vm++) {
+            int count = vms.taskCount(vm);
+            averages[vm] = count == 0 ? 0.0 : (double) vms.load(vm) / count;
+        }
+        double overallAvg = Arrays.stream(averages).average().orElse(0.0);
+
+        boolean[] highLoad = new boolean[averages.length];
+        for (int vm = 0; vm < averages.length; vm++) {
+            highLoad[vm] = overallAvg > averages[vm];
+        }
+        return highLoad;
+    }
+}
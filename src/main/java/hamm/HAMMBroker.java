@@ -0,0 +1,164 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A broker that schedules its cloudlets with HAMM or EHAMM itself, once its VMs
+ * have been created.
+ *
+ * Cloudlets are submitted unbound. When the last VM creation is acknowledged,
+ * the broker schedules the cloudlet lengths onto the VMs that were actually
+ * created, which the speed aware algorithms weigh by MIPS and PEs. It sets every cloudlet's VM id directly from that VM list and sends
+ * all cloudlets in one pass. This avoids bindCloudletToVm, which searches the
+ * cloudlet list on every call, and the per cloudlet list removal and logging
+ * of DatacenterBroker.submitCloudlets().
+ *
+ * Cloudlets are sent shortest first. Time shared VMs start them all at once
+ * either way, and space shared VMs then run each VM's cloudlets shortest
+ * first, which is what MakespanEvaluator and TailObjective assume.
+ */
+public class HAMMBroker extends DatacenterBroker {
+
+    private final SchedulingAlgorithm algorithm;
+    private int[] estimatedLengths;
+    private Schedule schedule;
+    private List<Vm> scheduledVms;
+    private int[] vmOfCloudlet;
+    private int[] submissionOrder;
+    private TailObjective objective;
+    private RunMetrics metrics = RunMetrics.disabled();
+
+    public HAMMBroker(String name, SchedulingAlgorithm algorithm) throws Exception {
+        super(name);
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Schedules on these lengths instead of the cloudlets' own, so runs can be
+     * scheduled on estimates that differ from what actually executes.
+     * estimatedLengths[i] belongs to the i-th submitted cloudlet.
+     */
+    public void setEstimatedLengths(int[] estimatedLengths) {
+        this.estimatedLengths = estimatedLengths;
+    }
+
+    /**
+     * Schedules under objective instead of plain HAMM/EHAMM, null to go back.
+     */
+    public void setObjective(TailObjective objective) {
+        this.objective = objective;
+    }
+
+    /**
+     * Times the scheduling phases ("HAMM", "reschedule", "binding" and
+     * "dispatch", the sending of every cloudlet) in metrics.
+     */
+    public void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The schedule the broker used, null until the VMs are created. Task i is
+     * the i-th submitted cloudlet and vm j is getScheduledVms().get(j).
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /** The VMs the schedule refers to, in schedule order. */
+    public List<Vm> getScheduledVms() {
+        return scheduledVms;
+    }
+
+    @Override
+    protected void submitCloudlets() {
+        List<Cloudlet> cloudlets = getCloudletList();
+        scheduleCloudlets(cloudlets);
+
+        metrics.begin("dispatch");
+        for (int i : submissionOrder) {
+            submitCloudlet(cloudlets.get(i), vmOfCloudlet(i));
+        }
+        getCloudletSubmittedList().addAll(cloudlets);
+        cloudlets.clear();
+        metrics.end("dispatch");
+    }
+
+    /**
+     * Schedules cloudlets onto the created VMs and sets each cloudlet's VM id,
+     * without submitting anything.
+     */
+    protected void scheduleCloudlets(List<Cloudlet> cloudlets) {
+        scheduledVms = new ArrayList<>(getVmsCreatedList());
+        int vmCount = scheduledVms.size();
+        int cloudletCount = cloudlets.size();
+
+        int[] sizes = new int[cloudletCount];
+        for (int i = 0; i < cloudletCount; i++) {
+            long length = estimatedLengths != null ? estimatedLengths[i] : cloudlets.get(i).getCloudletLength();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Cloudlet " + cloudlets.get(i).getCloudletId()
+                        + " is too long to schedule: " + length);
+            }
+            sizes[i] = (int) length;
+        }
+
+        Schedule scheduled = objective != null
+                ? objective.schedule(sizes, vmCount, algorithm, metrics)
+                : algorithm.schedule(sizes, scheduledVms, metrics);
+
+        metrics.begin("binding");
+        // the schedule holds task sizes in the order HAMM assigned them, so pair the
+        // i-th shortest cloudlet with the i-th smallest scheduled task
+        long[] cloudletKeys = new long[cloudletCount];
+        long[] taskKeys = new long[cloudletCount];
+        for (int i = 0; i < cloudletCount; i++) {
+            cloudletKeys[i] = ((long) sizes[i] << 32) | i;
+            taskKeys[i] = ((long) scheduled.taskSize(i) << 32) | i;
+        }
+        Arrays.sort(cloudletKeys);
+        Arrays.sort(taskKeys);
+        vmOfCloudlet = new int[cloudletCount];
+        submissionOrder = new int[cloudletCount];
+        for (int i = 0; i < cloudletCount; i++) {
+            vmOfCloudlet[(int) cloudletKeys[i]] = scheduled.vmOf((int) taskKeys[i]);
+            submissionOrder[i] = (int) cloudletKeys[i];
+        }
+
+        // renumber so task i is cloudlet i
+        schedule = new Schedule(vmCount, cloudletCount);
+        for (int i = 0; i < cloudletCount; i++) {
+            schedule.assign(sizes[i], vmOfCloudlet[i]);
+            cloudlets.get(i).setVmId(scheduledVms.get(vmOfCloudlet[i]).getId());
+        }
+        metrics.end("binding");
+
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": Scheduled " + cloudletCount + " cloudlets on "
+                + vmCount + " VMs with " + algorithm
+                + (objective != null ? " (tail weight " + objective.tailWeight() + ")" : ""));
+    }
+
+    /** Index in getScheduledVms() of the VM the i-th submitted cloudlet was scheduled on. */
+    protected int vmOfCloudlet(int i) {
+        return vmOfCloudlet[i];
+    }
+
+    /**
+     * Sends cloudlet to the datacenter of the vm-th scheduled VM.
+     */
+    protected void submitCloudlet(Cloudlet cloudlet, int vm) {
+        int vmId = scheduledVms.get(vm).getId();
+        cloudlet.setVmId(vmId);
+        sendNow(getVmsToDatacentersMap().get(vmId), CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+        cloudletsSubmitted++;
+    }
+}
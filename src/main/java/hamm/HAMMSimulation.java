@@ -0,0 +1,518 @@
+package hamm;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.*;
+
+/**
+ * A simple example showing how to create
+ * a datacenter with two hosts and run two
+ * cloudlets on it. The cloudlets run in
+ * VMs with different MIPS requirements.
+ * The cloudlets will take different time
+ * to complete the execution depending on
+ * the requested VM performance.
+ */
+public class HAMMSimulation {
+
+    /** The cloudlet list. */
+    private static List<Cloudlet> cloudletList;
+
+    /** The vmlist. */
+    private static List<Vm> vmlist;
+
+    /**
+     * Creates main() to run this example
+     *
+     * Optional arguments: number of tasks, number of VMs, seed and task size
+     * distribution, defaulting to 100, 6, 5555 and UNIFORM. With
+     * -Dhamm.topology=spec.txt the datacenter and VMs come from a Topology
+     * spec instead, the number of VMs is ignored and the tasks are scheduled
+     * with SPEED_HAMM, which balances finish times over the VMs' speeds. With
+     * -Dhamm.workload=trace.bin the tasks are read from a WorkloadFile instead,
+     * all of them unless a number of tasks is given. With
+     * -Dhamm.quiet=true the schedule and per cloudlet output are skipped.
+     * -Dhamm.cloudlets=file.csv writes the cloudlets to a CSV file instead of
+     * the log, and -Dhamm.metrics=prefix writes the run's metrics to
+     * prefix.json and prefix.csv. -Dhamm.tailWeight=0.5 schedules with a
+     * TailObjective that gives completion times that weight, on raw task sizes
+     * even with a topology. -Dhamm.crossCheck=true compares MakespanEvaluator's
+     * analytic times with the simulated ones and prints whether they agree.
+     */
+    public static void main(String[] args) {
+
+        Log.printLine("Starting CloudSimExample...");
+
+        boolean quiet = Boolean.getBoolean("hamm.quiet");
+        if (quiet) {
+            Log.disable();
+        }
+
+        try {
+            // First step: Initialize the CloudSim package. It should be called
+            // before creating any entities.
+            int num_user = 1;   // number of cloud users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            // Second step: Create Datacenters
+            //Datacenters are the resource providers in CloudSim. We need at list one of them to run a CloudSim simulation
+            RunMetrics metrics = new RunMetrics();
+            String topologySpec = System.getProperty("hamm.topology");
+            Topology topology = topologySpec != null ? Topology.load(Paths.get(topologySpec)) : null;
+            metrics.begin("topology");
+            @SuppressWarnings("unused")
+            Datacenter datacenter0 = topology != null ? topology.createDatacenter("Datacenter_0") : createDatacenter("Datacenter_0");
+            metrics.end("topology");
+
+            //Third step: Create Broker
+            // a topology can mix VM speeds, so its tasks are balanced on finish time
+            String tailWeight = System.getProperty("hamm.tailWeight");
+            HAMMBroker broker = createBroker(topology != null && tailWeight == null
+                    ? SchedulingAlgorithm.SPEED_HAMM : SchedulingAlgorithm.HAMM);
+            int brokerId = broker.getId();
+            broker.setMetrics(metrics);
+
+            //Fourth step: Create one virtual machine
+            vmlist = new ArrayList<Vm>();
+
+            //VM description
+            int vmCount = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+            int mips = 100;
+            long size = 10000; //image size (MB)
+            int ram = 500; //vm memory (MB)
+            long bw = 1000;
+            int pesNumber = 1; //number of cpus
+            String vmm = "Xen"; //VMM name
+
+            metrics.begin("topology");
+            if (topology != null) {
+                vmlist.addAll(topology.createVms(brokerId));
+                vmCount = vmlist.size();
+            } else {
+                //create VMs and add to our VM list
+                for(int i = 1; i <= vmCount; i++) {
+                    Vm vm = new Vm(i, brokerId, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerTimeShared());
+                    vmlist.add(vm);
+                }
+            }
+            metrics.end("topology");
+
+            //submit vm list to the broker
+            broker.submitVmList(vmlist);
+            if (tailWeight != null) {
+                broker.setObjective(new TailObjective(Double.parseDouble(tailWeight), TailObjective.sharingOf(vmlist)));
+            }
+
+
+            //Fifth step: Create two Cloudlets
+            cloudletList = new ArrayList<Cloudlet>();
+
+            //Cloudlet properties
+            long fileSize = 300;
+            long outputSize = 300;
+            UtilizationModel utilizationModel = new UtilizationModelFull();
+
+            // generate task sizes
+            int numTasks = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 5555;
+            TaskDistribution distribution = args.length > 3 ? TaskDistribution.valueOf(args[3]) : TaskDistribution.UNIFORM;
+            String workload = System.getProperty("hamm.workload");
+            int[] tasks = workload != null
+                    ? WorkloadFile.open(Paths.get(workload)).readInts(args.length > 0 ? numTasks : Long.MAX_VALUE)
+                    : distribution.generate(numTasks, seed);
+            numTasks = tasks.length;
+
+            //Next, we create one cloudlet per task, cloudlet i having task i's size
+            metrics.begin("cloudlets");
+            for(int task = 0; task < tasks.length; task++){
+                Cloudlet cloudlet = new Cloudlet(task, tasks[task], pesNumber, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+                cloudlet.setUserId(brokerId);
+                cloudletList.add(cloudlet);
+            }
+            metrics.end("cloudlets");
+
+            //The broker runs HAMM once the VMs exist and binds the cloudlets to them
+            broker.submitCloudletList(cloudletList);
+
+            metrics.begin("simulation");
+            CloudSim.startSimulation();
+            metrics.end("simulation");
+
+
+            // Final step: Print results when simulation is over
+            List<Cloudlet> newList = broker.getCloudletReceivedList();
+
+            CloudSim.stopSimulation();
+
+            Schedule vms = broker.getSchedule();
+            String cloudletReport = System.getProperty("hamm.cloudlets");
+            if (cloudletReport != null) {
+                new CloudletReportWriter().write(newList, Paths.get(cloudletReport));
+            } else if (!quiet) {
+                System.out.println(vms);
+                printCloudletList(newList);
+            }
+
+            MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(vms, broker.getScheduledVms(), pesNumber);
+            if (Boolean.getBoolean("hamm.crossCheck")) {
+                // reported, not thrown, so the run's results below still get printed
+                try {
+                    evaluator.crossCheck(newList, 0.01);
+                    System.out.println("Cross-check: analytic times agree with CloudSim");
+                } catch (IllegalStateException e) {
+                    System.out.println("Cross-check failed: " + e.getMessage());
+                }
+            }
+            System.out.println("Makespan: " + evaluator.makespan());
+
+            System.out.println("Load Variance: " + calculateLoadBalance(vms));
+
+            metrics.record(vms, evaluator);
+            if (!quiet) {
+                metrics.print(System.out);
+            } else {
+                // metrics.print already includes them
+                System.out.println("Completion p50/p95/p99: " + metrics.completionPercentile(50) + " / "
+                        + metrics.completionPercentile(95) + " / " + metrics.completionPercentile(99));
+            }
+            String metricsPrefix = System.getProperty("hamm.metrics");
+            if (metricsPrefix != null) {
+                metrics.writeJson(Paths.get(metricsPrefix + ".json"));
+                metrics.writeCsv(Paths.get(metricsPrefix + ".csv"));
+            }
+
+            // one machine readable line for ReplicationRunner
+            System.out.println("Result,HAMM," + numTasks + "," + vmCount + "," + seed + "," + distribution + ","
+                    + simulatedMakespan(newList) + "," + metrics.loadVariance() + "," + newList.size());
+
+            Log.printLine("HAMM Simulation finished!");
+
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    public static Datacenter createDatacenter(String name){
+
+        // Here are the steps needed to create a PowerDatacenter:
+        // 1. We need to create a list to store
+        //    our machine
+        List<Host> hostList = new ArrayList<Host>();
+
+        // 2. A Machine contains one or more PEs or CPUs/Cores.
+        // In this example, it will have only one core.
+        List<Pe> peList = new ArrayList<Pe>();
+
+        int mips = 1000;
+
+        // 3. Create PEs and add these into a list.
+        peList.add(new Pe(0, new PeProvisionerSimple(mips))); // need to store Pe id and MIPS Rating
+
+        //4. Create Hosts with its id and list of PEs and add them to the list of machines
+        int hostId=0;
+        int ram = 2048; //host memory (MB)
+        long storage = 1000000; //host storage
+        int bw = 10000;
+
+        hostList.add(
+                new Host(
+                        hostId,
+                        new RamProvisionerSimple(ram),
+                        new BwProvisionerSimple(bw),
+                        storage,
+                        peList,
+                        new VmSchedulerTimeShared(peList)
+                )
+        ); // This is our first machine
+
+        //create another machine in the Data center
+        List<Pe> peList2 = new ArrayList<Pe>();
+
+        peList2.add(new Pe(0, new PeProvisionerSimple(mips)));
+
+        hostId++;
+
+        hostList.add(
+                new Host(
+                        hostId,
+                        new RamProvisionerSimple(ram),
+                        new BwProvisionerSimple(bw),
+                        storage,
+                        peList2,
+                        new VmSchedulerTimeShared(peList2)
+                )
+        ); // This is our second machine
+
+
+
+        // 5. Create a DatacenterCharacteristics object that stores the
+        //    properties of a data center: architecture, OS, list of
+        //    Machines, allocation policy: time- or space-shared, time zone
+        //    and its price (G$/Pe time unit).
+        String arch = "x86";      // system architecture
+        String os = "Linux";          // operating system
+        String vmm = "Xen";
+        double time_zone = 10.0;         // time zone this resource located
+        double cost = 3.0;              // the cost of using processing in this resource
+        double costPerMem = 0.05;		// the cost of using memory in this resource
+        double costPerStorage = 0.001;	// the cost of using storage in this resource
+        double costPerBw = 0.0;			// the cost of using bw in this resource
+        LinkedList<Storage> storageList = new LinkedList<Storage>();	//we are not adding SAN devices by now
+
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                arch, os, vmm, hostList, time_zone, cost, costPerMem, costPerStorage, costPerBw);
+
+        // 6. Finally, we need to create a PowerDatacenter object.
+        Datacenter datacenter = null;
+        try {
+            datacenter = new Datacenter(name, characteristics, new VmAllocationPolicySimple(hostList), storageList, 0);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return datacenter;
+    }
+
+    //We strongly encourage users to develop their own broker policies, to submit vms and cloudlets according
+    //to the specific rules of the simulated scenario
+    public static DatacenterBroker createBroker(){
+
+        DatacenterBroker broker = null;
+        try {
+            broker = new DatacenterBroker("Broker");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        return broker;
+    }
+
+    /**
+     * Creates a broker that schedules its cloudlets with algorithm once its VMs exist.
+     */
+    public static HAMMBroker createBroker(SchedulingAlgorithm algorithm){
+
+        HAMMBroker broker = null;
+        try {
+            broker = new HAMMBroker("Broker", algorithm);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        return broker;
+    }
+
+    /**
+     * Prints the Cloudlet objects
+     * @param list  list of Cloudlets
+     */
+    public static void printCloudletList(List<Cloudlet> list) {
+        int size = list.size();
+        Cloudlet cloudlet;
+
+        String indent = "    ";
+        Log.printLine();
+        Log.printLine("========== OUTPUT ==========");
+        Log.printLine("Cloudlet ID" + indent + "STATUS" + indent +
+                "Data center ID" + indent + "VM ID" + indent + "Time" + indent + "Start Time" + indent + "Finish Time");
+
+        DecimalFormat dft = new DecimalFormat("###.##");
+        for (int i = 0; i < size; i++) {
+            cloudlet = list.get(i);
+            Log.print(indent + cloudlet.getCloudletId() + indent + indent);
+
+            if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS){
+                Log.print("SUCCESS");
+
+                Log.printLine( indent + indent + cloudlet.getResourceId() + indent + indent + indent + cloudlet.getVmId() +
+                        indent + indent + dft.format(cloudlet.getActualCPUTime()) + indent + indent + dft.format(cloudlet.getExecStartTime())+
+                        indent + indent + dft.format(cloudlet.getFinishTime()));
+            }
+        }
+
+    }
+
+    /**
+     * Time from the first cloudlet starting to the last one finishing in a
+     * finished simulation.
+     */
+    public static double simulatedMakespan(List<? extends Cloudlet> list) {
+        double firstStart = Double.POSITIVE_INFINITY;
+        double lastFinish = 0;
+        for (Cloudlet cloudlet : list) {
+            firstStart = Math.min(firstStart, cloudlet.getExecStartTime());
+            lastFinish = Math.max(lastFinish, cloudlet.getFinishTime());
+        }
+        return list.isEmpty() ? 0 : lastFinish - firstStart;
+    }
+
+    public static List<List<Integer>> HAMM(List<Integer> taskSizes, int vmCount) {
+        return HAMM(taskSizes.stream().mapToInt(Integer::intValue).toArray(), vmCount).toLists();
+    }
+
+    public static Schedule HAMM(int[] taskSizes, int vmCount) {
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        Schedule vms = new Schedule(vmCount, taskSizes.length);
+        VmLoadIndex loads = new VmLoadIndex(vmCount);
+        TaskPool pool = new TaskPool(taskSizes);
+
+        //find how many tasks are above average vs below average
+        while (!pool.isEmpty()) {
+            double average = pool.average();
+            int lower = pool.countAtMost(average);
+            int higher = pool.size() - lower;
+
+            // maxMin takes the largest task, minMin the smallest, both go to the least loaded vm
+            int value = lower >= higher ? pool.pollMax() : pool.pollMin();
+            addToMinVM(value, vms, loads);
+        }
+        event.record("HAMM", vmCount, taskSizes.length, 0, 0, loads.comparisons());
+        return vms;
+    }
+
+    /**
+     * Completion time aware HAMM for VMs of different speeds. Tasks are picked
+     * the same way, but each goes to the VM that would finish it earliest given
+     * that VM's MIPS and PE count. On identical VMs this gives the same schedule
+     * as HAMM(int[], int).
+     */
+    public static Schedule HAMM(int[] taskSizes, List<? extends Vm> vmList) {
+        return HAMM(taskSizes, capacities(vmList));
+    }
+
+    /**
+     * Completion time aware HAMM on VMs given by their capacities, see
+     * capacities(List).
+     */
+    public static Schedule HAMM(int[] taskSizes, double[] capacities) {
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        Schedule vms = new Schedule(capacities.length, taskSizes.length);
+        VmSpeedIndex finishTimes = VmSpeedIndex.earliestFirst(capacities);
+        TaskPool pool = new TaskPool(taskSizes);
+
+        while (!pool.isEmpty()) {
+            double average = pool.average();
+            int lower = pool.countAtMost(average);
+            int higher = pool.size() - lower;
+
+            int value = lower >= higher ? pool.pollMax() : pool.pollMin();
+            int vm = finishTimes.earliestFinish(value);
+            finishTimes.addLoad(vm, value);
+            vms.assign(value, vm);
+        }
+        event.record("HAMM", capacities.length, taskSizes.length, 0, 0, finishTimes.scannedClasses());
+        return vms;
+    }
+
+    /**
+     * Total MIPS of each vm, its per PE MIPS times its number of PEs.
+     */
+    public static double[] capacities(List<? extends Vm> vmList) {
+        double[] capacities = new double[vmList.size()];
+        for (int i = 0; i < capacities.length; i++) {
+            Vm vm = vmList.get(i);
+            capacities[i] = vm.getMips() * vm.getNumberOfPes();
+        }
+        return capacities;
+    }
+
+    public static void maxMin(List<Integer> tasks, List<List<Integer>> vms){
+        // take max from tasks, assign to min vm
+        Integer val = Collections.max(tasks);
+        addToMinVM(val, vms);
+        tasks.remove(val);
+    }
+
+    public static void minMin(List<Integer> tasks, List<List<Integer>> vms){
+        // take min from tasks, assign to min vm
+        Integer val = Collections.min(tasks);
+        addToMinVM(val, vms);
+        tasks.remove(val);
+    }
+
+    public static void addToMinVM(Integer value, List<List<Integer>> vms){
+        Integer min_sum = Integer.MAX_VALUE;
+        int min_index = 0;
+        for(int i = 0; i < vms.size(); i++){
+            List<Integer> vm = vms.get(i);
+            Integer sum = 0;
+            for(Integer val : vm) {
+                sum += val;
+            }
+            if(sum < min_sum){
+                min_sum = sum;
+                min_index = i;
+            }
+        }
+        vms.get(min_index).add(value);
+    }
+
+    /**
+     * Same as addToMinVM(Integer, List), but looks the least loaded vm up in
+     * loads instead of re-summing every vm. loads must hold the current load of each vm.
+     */
+    public static void addToMinVM(int value, Schedule vms, VmLoadIndex loads){
+        int min_index = loads.leastLoaded();
+        loads.addLoad(min_index, value);
+        vms.assign(value, min_index);
+    }
+
+    public static double calculateLoadBalance(List<List<Integer>> vms) {
+        // variance in size of each machine, lower is better
+        int n = vms.size();
+        double meanSize = 0;
+        for (List<Integer> machine : vms) {
+            meanSize += machine.size();
+        }
+        meanSize /= n;
+
+        double variance = 0;
+        for (List<Integer> machine : vms) {
+            int machineSize = machine.size();
+            variance += (machineSize - meanSize) * (machineSize - meanSize);
+        }
+        variance /= (n - 1);
+
+        return variance;
+    }
+
+    public static double calculateLoadBalance(Schedule vms) {
+        // variance in number of tasks on each machine, lower is better
+        int n = vms.vmCount();
+        double meanSize = (double) vms.taskCount() / n;
+
+        double variance = 0;
+        for (int vm = 0; vm < n; vm++) {
+            int machineSize = vms.taskCount(vm);
+            variance += (machineSize - meanSize) * (machineSize - meanSize);
+        }
+        variance /= (n - 1);
+
+        return variance;
+    }
+}
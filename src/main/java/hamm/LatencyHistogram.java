@@ -0,0 +1,97 @@
+package hamm;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size histogram of durations in nanoseconds for percentile reports.
+ *
+ * Values below 64 get a bucket each. Larger values share buckets whose width
+ * grows with the value, 32 buckets per power of two, so a percentile is off
+ * by at most about 3%. The histogram always takes the same 15 KB however many
+ * values are recorded, and recording never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = 2 * SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * The smallest recorded value such that percent of all values are at most
+     * it, rounded down to its bucket. percentile(100) is the exact maximum.
+     */
+    public long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        if (percent >= 100) {
+            return max;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, lowestValue(i)));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_COUNT;
+        return 2 * SUB_COUNT + (shift - 1) * SUB_COUNT + sub;
+    }
+
+    private static long lowestValue(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - 2 * SUB_COUNT) / SUB_COUNT + 1;
+        long sub = (bucket - 2 * SUB_COUNT) % SUB_COUNT + SUB_COUNT;
+        return sub << shift;
+    }
+}
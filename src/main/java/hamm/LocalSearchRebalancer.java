@@ -0,0 +1,326 @@
+package hamm;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Anytime local search that lowers the makespan of a schedule on identical VMs.
+ *
+ * reschedule only offers the smallest task of each high load machine once.
+ * This search keeps working on whichever machine currently has the largest
+ * load. It looks at the few least loaded machines, and for each one it finds
+ * the best move of a single task or swap of two tasks between the pair.
+ * The best move or swap brings the pair's loads closest to each other. A
+ * change is only made when the largest machine ends up below its old load and
+ * the other machine does too, so no step raises the makespan and the current
+ * schedule is always the best one found. The search stops at a local optimum,
+ * when the time budget runs out or after the maximum number of iterations,
+ * whichever comes first.
+ *
+ * The tasks of a machine are sorted by size when the search first uses it, so finding the best move
+ * takes a binary search and finding the best swap one binary search per task
+ * on the largest machine. Loads come from two VmLoadIndexes, one ordered most
+ * loaded first and one least loaded first.
+ *
+ * Usage: java hamm.LocalSearchRebalancer [--tasks 1e5] [--vms 100] [--dist UNIFORM] [--seed 5555]
+ *        [--budget-ms 1,10,100] [--candidates 16]
+ */
+public class LocalSearchRebalancer {
+
+    private final int candidates;
+
+    private Schedule vms;
+    private int[] offsets;
+    private int[] grouped;
+    private long[][] keys;   // (size << 32) | task of every machine, sorted, null until first used
+    private int[] counts;
+    private VmLoadIndex highLoadIndex;
+    private VmLoadIndex lowLoadIndex;
+
+    private long iterations;
+    private long moves;
+    private long swaps;
+    private boolean converged;
+
+    // the best change found by improve()
+    private long bestScore;
+    private int bestTask;
+    private int bestOther;
+
+    /**
+     * @param candidates how many of the least loaded machines each iteration
+     *                   tries to trade with
+     */
+    public LocalSearchRebalancer(int candidates) {
+        if (candidates < 1) {
+            throw new IllegalArgumentException("need at least one candidate: " + candidates);
+        }
+        this.candidates = candidates;
+    }
+
+    /**
+     * Improves vms in place until a local optimum, budgetNanos of wall time or
+     * maxIterations, and returns it.
+     */
+    public Schedule rebalance(Schedule vms, long budgetNanos, long maxIterations) {
+        long start = System.nanoTime();
+        this.vms = vms;
+        iterations = 0;
+        moves = 0;
+        swaps = 0;
+        converged = false;
+
+        int vmCount = vms.vmCount();
+        offsets = new int[vmCount + 1];
+        grouped = vms.tasksByVm(offsets);
+        keys = new long[vmCount][];
+        counts = new int[vmCount];
+        highLoadIndex = new VmLoadIndex(vmCount);
+        lowLoadIndex = new VmLoadIndex(vmCount);
+        for (int vm = 0; vm < vmCount; vm++) {
+            highLoadIndex.setLoad(vm, -vms.load(vm));
+            lowLoadIndex.setLoad(vm, vms.load(vm));
+        }
+
+        int[] picked = new int[Math.min(candidates, vmCount)];
+        while (iterations < maxIterations && System.nanoTime() - start < budgetNanos) {
+            iterations++;
+            int highMachine = highLoadIndex.leastLoaded();
+
+            // the least loaded machines, in order of load
+            int pickedCount = 0;
+            while (pickedCount < picked.length) {
+                int vm = lowLoadIndex.leastLoaded();
+                lowLoadIndex.remove(vm);
+                picked[pickedCount++] = vm;
+            }
+            for (int i = 0; i < pickedCount; i++) {
+                lowLoadIndex.insert(picked[i], vms.load(picked[i]));
+            }
+
+            boolean improved = false;
+            for (int i = 0; i < pickedCount && !improved; i++) {
+                int lowMachine = picked[i];
+                long gap = vms.load(highMachine) - vms.load(lowMachine);
+                if (gap < 2) {
+                    // later candidates are loaded at least as much, nothing fits in the gap
+                    break;
+                }
+                improved = improve(highMachine, lowMachine, gap);
+            }
+            if (!improved) {
+                converged = true;
+                break;
+            }
+        }
+        return vms;
+    }
+
+    /**
+     * Makes the best move or swap between the two machines that leaves both
+     * below the high machine's load, if there is one.
+     */
+    private boolean improve(int highMachine, int lowMachine, long gap) {
+        sortTasks(highMachine);
+        sortTasks(lowMachine);
+
+        // moving d from high to low leaves the pair |gap - 2d| apart; any 0 < d < gap helps
+        long half = gap / 2;
+        bestScore = gap;
+        bestTask = -1;
+        bestOther = -1;
+
+        long[] high = keys[highMachine];
+        int highCount = counts[highMachine];
+        int i = lowerBound(high, highCount, half);
+        for (int j = Math.max(0, i - 1); j <= Math.min(highCount - 1, i); j++) {
+            consider(size(high[j]), (int) high[j], -1, gap);
+        }
+
+        long[] low = keys[lowMachine];
+        int lowCount = counts[lowMachine];
+        for (int a = 0; a < highCount && bestScore > 1; a++) {
+            long sizeA = size(high[a]);
+            int b = lowerBound(low, lowCount, sizeA - half);
+            for (int j = Math.max(0, b - 1); j <= Math.min(lowCount - 1, b); j++) {
+                consider(sizeA - size(low[j]), (int) high[a], (int) low[j], gap);
+            }
+        }
+
+        if (bestTask < 0) {
+            return false;
+        }
+        relocate(bestTask, highMachine, lowMachine);
+        if (bestOther >= 0) {
+            relocate(bestOther, lowMachine, highMachine);
+            swaps++;
+        } else {
+            moves++;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the tasks of vm the first time it is used, so a short budget is not
+     * spent sorting machines the search never gets to.
+     */
+    private void sortTasks(int vm) {
+        if (keys[vm] != null) {
+            return;
+        }
+        counts[vm] = offsets[vm + 1] - offsets[vm];
+        keys[vm] = new long[Math.max(counts[vm], 4)];
+        for (int i = 0; i < counts[vm]; i++) {
+            keys[vm][i] = key(grouped[offsets[vm] + i]);
+        }
+        Arrays.sort(keys[vm], 0, counts[vm]);
+    }
+
+    private void consider(long delta, int task, int other, long gap) {
+        if (delta <= 0 || delta >= gap) {
+            return;
+        }
+        long score = Math.abs(gap - 2 * delta);
+        // prefer a plain move over a swap that balances just as well
+        if (score < bestScore || (score == bestScore && other < 0 && bestOther >= 0)) {
+            bestScore = score;
+            bestTask = task;
+            bestOther = other;
+        }
+    }
+
+    private void relocate(int task, int from, int to) {
+        long key = key(task);
+        long[] fromKeys = keys[from];
+        int at = indexOf(fromKeys, counts[from], key);
+        System.arraycopy(fromKeys, at + 1, fromKeys, at, counts[from] - at - 1);
+        counts[from]--;
+
+        if (counts[to] == keys[to].length) {
+            keys[to] = Arrays.copyOf(keys[to], keys[to].length * 2);
+        }
+        long[] toKeys = keys[to];
+        at = indexOf(toKeys, counts[to], key);
+        System.arraycopy(toKeys, at, toKeys, at + 1, counts[to] - at);
+        toKeys[at] = key;
+        counts[to]++;
+
+        vms.move(task, to);
+        highLoadIndex.setLoad(from, -vms.load(from));
+        highLoadIndex.setLoad(to, -vms.load(to));
+        lowLoadIndex.setLoad(from, vms.load(from));
+        lowLoadIndex.setLoad(to, vms.load(to));
+    }
+
+    private long key(int task) {
+        return ((long) vms.taskSize(task) << 32) | task;
+    }
+
+    private static long size(long key) {
+        return key >>> 32;
+    }
+
+    /** First of the count sorted keys whose task is at least size large. */
+    private static int lowerBound(long[] keys, int count, long size) {
+        return indexOf(keys, count, size << 32);
+    }
+
+    /** First of the count sorted keys that is at least key. */
+    private static int indexOf(long[] keys, int count, long key) {
+        if (key < 0) {
+            return 0;
+        }
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public long iterations() {
+        return iterations;
+    }
+
+    public long moves() {
+        return moves;
+    }
+
+    public long swaps() {
+        return swaps;
+    }
+
+    /** Whether the last run stopped at a local optimum rather than a limit. */
+    public boolean converged() {
+        return converged;
+    }
+
+    public static void main(String[] args) {
+        int taskCount = 100000;
+        int vmCount = 100;
+        TaskDistribution distribution = TaskDistribution.UNIFORM;
+        long seed = 5555;
+        int[] budgets = {1, 10, 100};
+        int candidates = 16;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    taskCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--vms":
+                    vmCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--dist":
+                    distribution = TaskDistribution.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--budget-ms":
+                    budgets = SweepRunner.parseInts(value);
+                    break;
+                case "--candidates":
+                    candidates = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        int[] tasks = distribution.generate(taskCount, seed);
+        long total = 0;
+        long largest = 0;
+        for (int size : tasks) {
+            total += size;
+            largest = Math.max(largest, size);
+        }
+        // no schedule can beat the average load or the largest task
+        long lowerBound = Math.max((total + vmCount - 1) / vmCount, largest);
+
+        Schedule ehamm = SchedulingAlgorithm.EHAMM.schedule(tasks, vmCount);
+        long start = ParallelHAMM.maxLoad(ehamm);
+        System.out.println(String.format(Locale.ROOT, "%d %s tasks on %d VMs, lower bound %d, EHAMM makespan %d (%+.4f%%)",
+                taskCount, distribution, vmCount, lowerBound, start, 100.0 * (start - lowerBound) / lowerBound));
+        System.out.println(String.format(Locale.ROOT, "%-10s %10s %10s %8s %8s %14s %12s %12s %10s",
+                "budget ms", "used ms", "iterations", "moves", "swaps", "makespan", "vs EHAMM", "vs bound", "converged"));
+
+        LocalSearchRebalancer search = new LocalSearchRebalancer(candidates);
+        for (int budget : budgets) {
+            Schedule schedule = ehamm.copy();
+            long begin = System.nanoTime();
+            search.rebalance(schedule, budget * 1000000L, Long.MAX_VALUE);
+            double used = (System.nanoTime() - begin) / 1e6;
+            long makespan = ParallelHAMM.maxLoad(schedule);
+            System.out.println(String.format(Locale.ROOT, "%-10d %10.2f %10d %8d %8d %14d %+11.4f%% %+11.4f%% %10s",
+                    budget, used, search.iterations(), search.moves(), search.swaps(), makespan,
+                    100.0 * (makespan - start) / start, 100.0 * (makespan - lowerBound) / lowerBound, search.converged()));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes cloudlet start and finish times, VM busy times and the makespan of a
+ * schedule analytically, without running CloudSim.
+ *
+ * It models what CloudletSchedulerTimeShared does with a schedule bound and
+ * submitted all at once, as the simulations do. Every cloudlet on a VM starts
+ * at submission, and the VM's MIPS are shared evenly between its running
+ * cloudlets: each PE of a cloudlet gets mips * pes / max(pesInUse, pes) MIPS.
+ * Cloudlets therefore finish in order of length. Each VM is assumed to get
+ * the MIPS it requested, which the hosts built by createDatacenter provide.
+ * Times are relative to submission.
+ *
+ * VMs with a CloudletSchedulerSpaceShared run their cloudlets one after
+ * another instead, pes / cloudletPes at a time, each at the full per PE MIPS.
+ * They are modelled in the order HAMMBroker submits them, shortest first.
+ *
+ * An evaluator keeps its buffers between calls, so evaluating many schedules
+ * with one instance allocates almost nothing.
+ */
+public class MakespanEvaluator {
+
+    private Schedule schedule;
+    private double[] start = new double[0];
+    private double[] finish = new double[0];
+    private double[] busy = new double[0];
+    private double makespan;
+
+    private int[] offsets = new int[1];
+    private int[] grouped = new int[0];
+    private int[] next = new int[0];
+    private long[] keys = new long[0];
+    private double[] slotFree = new double[0];
+
+    public MakespanEvaluator evaluate(Schedule schedule, List<? extends Vm> vmList, int cloudletPes) {
+        double[] mips = new double[vmList.size()];
+        int[] pes = new int[vmList.size()];
+        boolean[] spaceShared = new boolean[vmList.size()];
+        for (int i = 0; i < mips.length; i++) {
+            mips[i] = vmList.get(i).getMips();
+            pes[i] = vmList.get(i).getNumberOfPes();
+            spaceShared[i] = vmList.get(i).getCloudletScheduler() instanceof CloudletSchedulerSpaceShared;
+        }
+        return evaluate(schedule, mips, pes, cloudletPes, spaceShared);
+    }
+
+    /**
+     * Evaluates schedule on time shared VMs with the given per PE MIPS and PE
+     * counts, every cloudlet using cloudletPes PEs.
+     */
+    public MakespanEvaluator evaluate(Schedule schedule, double[] mips, int[] pes, int cloudletPes) {
+        return evaluate(schedule, mips, pes, cloudletPes, null);
+    }
+
+    /**
+     * As evaluate(Schedule, double[], int[], int), but the VMs marked in
+     * spaceShared run their cloudlets shortest first, without sharing.
+     * spaceShared may be null when no VM does.
+     */
+    public MakespanEvaluator evaluate(Schedule schedule, double[] mips, int[] pes, int cloudletPes, boolean[] spaceShared) {
+        int vmCount = schedule.vmCount();
+        int taskCount = schedule.taskCount();
+        ensureCapacity(taskCount, vmCount);
+        this.schedule = schedule;
+        schedule.tasksByVm(offsets, grouped, next);
+
+        makespan = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            int from = offsets[vm];
+            int to = offsets[vm + 1];
+            for (int i = from; i < to; i++) {
+                int task = grouped[i];
+                keys[i] = ((long) schedule.taskSize(task) << 32) | task;
+            }
+            Arrays.sort(keys, from, to);
+
+            if (spaceShared != null && spaceShared[vm]) {
+                busy[vm] = runShortestFirst(from, to, mips[vm], Math.max(1, pes[vm] / cloudletPes));
+                makespan = Math.max(makespan, busy[vm]);
+                continue;
+            }
+
+            double totalMips = mips[vm] * pes[vm];
+            double time = 0;
+            double done = 0; // MI completed so far by every cloudlet still running
+            int running = to - from;
+            for (int i = from; i < to; i++) {
+                int task = (int) keys[i];
+                long length = keys[i] >>> 32;
+                if (length > done) {
+                    double perPe = totalMips / Math.max(running * cloudletPes, pes[vm]);
+                    time += (length - done) / perPe;
+                    done = length;
+                }
+                start[task] = 0;
+                finish[task] = time;
+                running--;
+            }
+            busy[vm] = time;
+            makespan = Math.max(makespan, time);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the sorted cloudlets keys[from, to) in order on slots parallel
+     * slots, each cloudlet taking the slot that frees first. Returns when the
+     * last one finishes.
+     */
+    private double runShortestFirst(int from, int to, double mips, int slots) {
+        if (slotFree.length < slots) {
+            slotFree = new double[slots];
+        }
+        Arrays.fill(slotFree, 0, slots, 0);
+        double last = 0;
+        for (int i = from; i < to; i++) {
+            int task = (int) keys[i];
+            int slot = 0;
+            for (int j = 1; j < slots; j++) {
+                if (slotFree[j] < slotFree[slot]) {
+                    slot = j;
+                }
+            }
+            start[task] = slotFree[slot];
+            finish[task] = start[task] + (keys[i] >>> 32) / mips;
+            slotFree[slot] = finish[task];
+            last = Math.max(last, finish[task]);
+        }
+        return last;
+    }
+
+    public double makespan() {
+        return makespan;
+    }
+
+    public double startTime(int task) {
+        return start[task];
+    }
+
+    public double finishTime(int task) {
+        return finish[task];
+    }
+
+    /** Time from submission until the last cloudlet on vm finishes. */
+    public double busyTime(int vm) {
+        return busy[vm];
+    }
+
+    /**
+     * Checks the last evaluation against a CloudSim run of the same schedule,
+     * where cloudlet ids are task indices. Each cloudlet's run time
+     * (finish - exec start) and the overall makespan must agree within
+     * tolerance, relative to the simulated value (absolute below 1).
+     *
+     * @throws IllegalStateException on the first disagreement
+     */
+    public void crossCheck(List<? extends Cloudlet> received, double tolerance) {
+        if (received.size() != schedule.taskCount()) {
+            throw new IllegalStateException("CloudSim returned " + received.size()
+                    + " cloudlets, schedule has " + schedule.taskCount());
+        }
+        double firstStart = Double.POSITIVE_INFINITY;
+        double lastFinish = 0;
+        for (Cloudlet cloudlet : received) {
+            int task = cloudlet.getCloudletId();
+            double simulated = cloudlet.getFinishTime() - cloudlet.getExecStartTime();
+            double analytic = finish[task] - start[task];
+            if (!agrees(analytic, simulated, tolerance)) {
+                throw new IllegalStateException("Cloudlet " + task + " ran for " + simulated
+                        + " in CloudSim, analytic " + analytic);
+            }
+            firstStart = Math.min(firstStart, cloudlet.getExecStartTime());
+            lastFinish = Math.max(lastFinish, cloudlet.getFinishTime());
+        }
+        double simulatedMakespan = received.isEmpty() ? 0 : lastFinish - firstStart;
+        if (!agrees(makespan, simulatedMakespan, tolerance)) {
+            throw new IllegalStateException("CloudSim makespan " + simulatedMakespan + ", analytic " + makespan);
+        }
+    }
+
+    private static boolean agrees(double analytic, double simulated, double tolerance) {
+        return Math.abs(analytic - simulated) <= tolerance * Math.max(1, Math.abs(simulated));
+    }
+
+    private void ensureCapacity(int taskCount, int vmCount) {
+        if (start.length < taskCount) {
+            start = new double[taskCount];
+            finish = new double[taskCount];
+            grouped = new int[taskCount];
+            keys = new long[taskCount];
+        }
+        if (busy.length < vmCount) {
+            busy = new double[vmCount];
+            next = new int[vmCount];
+            offsets = new int[vmCount + 1];
+        }
+    }
+}
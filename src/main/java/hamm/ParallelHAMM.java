@@ -0,0 +1,234 @@
+package hamm;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * HAMM split into shards that are scheduled in parallel.
+ *
+ * The VMs are cut into shards of consecutive VMs, and the tasks into
+ * consecutive ranges in proportion to each shard's VM count. Every shard is
+ * scheduled on its own with HAMM or EHAMM on a fork-join pool, so each one only
+ * sorts its own tasks and only looks at its own VMs. The shard schedules are
+ * then joined into one schedule, and a merge pass moves tasks from the most to
+ * the least loaded VMs to repair imbalance between shards.
+ *
+ * The merge pass works like reschedule, but on loads instead of task counts.
+ * It moves the smallest task of the most loaded VM to the least loaded VM
+ * whenever that shrinks the difference between them. When it does not, the
+ * most loaded VM is retired and the next one is tried.
+ *
+ * Usage: java hamm.ParallelHAMM [--tasks 1e7] [--vms 1000] [--shards 1,2,4,8] [--threads 8]
+ *        [--algorithm HAMM] [--dist UNIFORM] [--seed 5555] [--iterations 3]
+ */
+public class ParallelHAMM {
+
+    private final ForkJoinPool pool;
+    private final int shards;
+    private final SchedulingAlgorithm algorithm;
+
+    /**
+     * @param shards    how many parts to split the VMs and tasks into, at most one per VM
+     * @param algorithm what schedules each shard
+     */
+    public ParallelHAMM(ForkJoinPool pool, int shards, SchedulingAlgorithm algorithm) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("need at least one shard: " + shards);
+        }
+        this.pool = pool;
+        this.shards = shards;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Schedules every shard in parallel and repairs the joined schedule with
+     * the merge pass.
+     */
+    public Schedule schedule(int[] taskSizes, int vmCount) {
+        Schedule schedule = shard(taskSizes, vmCount);
+        rebalance(schedule);
+        return schedule;
+    }
+
+    /**
+     * Schedules every shard in parallel and joins the shard schedules, without
+     * the merge pass. Tasks keep their order, shard by shard.
+     */
+    public Schedule shard(int[] taskSizes, int vmCount) {
+        int shardCount = Math.min(shards, vmCount);
+        int[] vmStart = new int[shardCount + 1];
+        int[] taskStart = new int[shardCount + 1];
+        for (int s = 0; s <= shardCount; s++) {
+            vmStart[s] = (int) ((long) s * vmCount / shardCount);
+            taskStart[s] = (int) ((long) taskSizes.length * vmStart[s] / vmCount);
+        }
+
+        Schedule[] parts = new Schedule[shardCount];
+        pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, shardCount).parallel().forEach(s ->
+                parts[s] = algorithm.schedule(Arrays.copyOfRange(taskSizes, taskStart[s], taskStart[s + 1]),
+                        vmStart[s + 1] - vmStart[s]))));
+
+        Schedule schedule = new Schedule(vmCount, taskSizes.length);
+        for (int s = 0; s < shardCount; s++) {
+            Schedule part = parts[s];
+            for (int task = 0; task < part.taskCount(); task++) {
+                schedule.assign(part.taskSize(task), vmStart[s] + part.vmOf(task));
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * The merge pass: moves tasks from the most loaded VMs to the least loaded
+     * ones in place, and returns how many tasks it moved.
+     */
+    public static int rebalance(Schedule schedule) {
+        int vmCount = schedule.vmCount();
+        TaskHeaps tasks = new TaskHeaps(schedule);
+        VmLoadIndex highLoadIndex = new VmLoadIndex(vmCount); // keyed by minus the load, most loaded first
+        VmLoadIndex lowLoadIndex = new VmLoadIndex(vmCount);
+        for (int vm = 0; vm < vmCount; vm++) {
+            highLoadIndex.setLoad(vm, -schedule.load(vm));
+            lowLoadIndex.setLoad(vm, schedule.load(vm));
+        }
+
+        int moves = 0;
+        while (!highLoadIndex.isEmpty()) {
+            int highMachine = highLoadIndex.leastLoaded();
+            int lowMachine = lowLoadIndex.leastLoaded();
+            if (highMachine == lowMachine || tasks.size(highMachine) == 0) {
+                highLoadIndex.remove(highMachine);
+                continue;
+            }
+
+            int task = tasks.peekMin(highMachine);
+            long size = schedule.taskSize(task);
+            long diff = schedule.load(highMachine) - schedule.load(lowMachine);
+            long diffAfter = (schedule.load(highMachine) - size) - (schedule.load(lowMachine) + size);
+            if (Math.abs(diff) <= Math.abs(diffAfter)) {
+                // not even the smallest task helps, this machine is as balanced as it gets
+                highLoadIndex.remove(highMachine);
+                continue;
+            }
+
+            tasks.pollMin(highMachine);
+            tasks.add(lowMachine, task);
+            schedule.move(task, lowMachine);
+            highLoadIndex.setLoad(highMachine, -schedule.load(highMachine));
+            highLoadIndex.setLoad(lowMachine, -schedule.load(lowMachine));
+            lowLoadIndex.setLoad(highMachine, schedule.load(highMachine));
+            lowLoadIndex.setLoad(lowMachine, schedule.load(lowMachine));
+            moves++;
+        }
+        return moves;
+    }
+
+    /** Largest load of any VM, the makespan on identical VMs. */
+    static long maxLoad(Schedule schedule) {
+        long max = 0;
+        for (int vm = 0; vm < schedule.vmCount(); vm++) {
+            max = Math.max(max, schedule.load(vm));
+        }
+        return max;
+    }
+
+    /**
+     * Compares sharded scheduling with the sequential algorithm for each shard
+     * count: time, speedup, makespan before and after the merge pass, and load
+     * variance.
+     */
+    public static void main(String[] args) {
+        int taskCount = 10000000;
+        int vmCount = 1000;
+        int[] shardCounts = {1, 2, 4, 8};
+        int threads = Runtime.getRuntime().availableProcessors();
+        SchedulingAlgorithm algorithm = SchedulingAlgorithm.HAMM;
+        TaskDistribution distribution = TaskDistribution.UNIFORM;
+        long seed = 5555;
+        int iterations = 3;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    taskCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--vms":
+                    vmCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--shards":
+                    shardCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--algorithm":
+                    algorithm = SchedulingAlgorithm.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                case "--dist":
+                    distribution = TaskDistribution.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        int[] tasks = distribution.generate(taskCount, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // best of the iterations, the first ones include warm up
+            Schedule sequential = null;
+            double sequentialMillis = Double.POSITIVE_INFINITY;
+            for (int it = 0; it < iterations; it++) {
+                long start = System.nanoTime();
+                sequential = algorithm.schedule(tasks, vmCount);
+                sequentialMillis = Math.min(sequentialMillis, (System.nanoTime() - start) / 1e6);
+            }
+            long sequentialMakespan = maxLoad(sequential);
+
+            System.out.println(String.format(Locale.ROOT, "%s, %d tasks, %d VMs, %s, %d threads",
+                    algorithm, taskCount, vmCount, distribution, threads));
+            System.out.println(String.format(Locale.ROOT, "%-10s %10s %10s %8s %8s %14s %14s %10s %12s",
+                    "Shards", "shard ms", "merge ms", "speedup", "moves", "makespan pre", "makespan", "vs seq", "load var"));
+            System.out.println(String.format(Locale.ROOT, "%-10s %10.1f %10s %8.2f %8s %14s %14d %10s %12.4f",
+                    "sequential", sequentialMillis, "-", 1.0, "-", "-", sequentialMakespan, "-",
+                    RunMetrics.loadVariance(sequential)));
+
+            for (int shards : shardCounts) {
+                ParallelHAMM parallel = new ParallelHAMM(pool, shards, algorithm);
+                double shardMillis = Double.POSITIVE_INFINITY;
+                double mergeMillis = Double.POSITIVE_INFINITY;
+                Schedule schedule = null;
+                long premerge = 0;
+                int moves = 0;
+                for (int it = 0; it < iterations; it++) {
+                    long start = System.nanoTime();
+                    schedule = parallel.shard(tasks, vmCount);
+                    long sharded = System.nanoTime();
+                    premerge = maxLoad(schedule);
+                    long mergeStart = System.nanoTime();
+                    moves = rebalance(schedule);
+                    long end = System.nanoTime();
+                    shardMillis = Math.min(shardMillis, (sharded - start) / 1e6);
+                    mergeMillis = Math.min(mergeMillis, (end - mergeStart) / 1e6);
+                }
+                long makespan = maxLoad(schedule);
+                System.out.println(String.format(Locale.ROOT, "%-10d %10.1f %10.1f %8.2f %8d %14d %14d %+9.4f%% %12.4f",
+                        shards, shardMillis, mergeMillis, sequentialMillis / (shardMillis + mergeMillis), moves,
+                        premerge, makespan, 100.0 * (makespan - sequentialMakespan) / sequentialMakespan,
+                        RunMetrics.loadVariance(schedule)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package hamm;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Summarises a Java Flight Recorder recording of the simulations into a per
+ * phase time and allocation breakdown.
+ *
+ * Phases come from the SchedulerEvents.Phase events RunMetrics commits. They
+ * nest ("simulation" contains the broker's "HAMM", "reschedule",
+ * "binding" and "dispatch"), so each phase gets its total and its self time, the part not
+ * spent in a nested phase, along with its share of all outermost phases. The
+ * SchedulerEvents.Batch counters are summed per step, and garbage collection
+ * pauses are added for context.
+ *
+ * Usage: java -XX:StartFlightRecording=filename=run.jfr EHAMMSimulation 100000 60
+ *        java hamm.ProfileReport run.jfr
+ */
+public class ProfileReport {
+
+    /** Totals of one phase over all its runs. */
+    static class PhaseTotals {
+        long runs;
+        long nanos;
+        long selfNanos;
+        long bytes;
+        long selfBytes;
+    }
+
+    /** Totals of one batch step over all its calls. */
+    static class BatchTotals {
+        long calls;
+        long nanos;
+        long tasksAssigned;
+        long movesAccepted;
+        long movesRejected;
+        long vmsScanned;
+    }
+
+    private static class PhaseRun {
+        final long thread;
+        final Instant start;
+        final Instant end;
+        final String phase;
+        final long bytes;
+        long childNanos;
+        long childBytes;
+
+        PhaseRun(RecordedEvent event) {
+            RecordedThread recordedThread = event.getThread();
+            thread = recordedThread == null ? -1 : recordedThread.getJavaThreadId();
+            start = event.getStartTime();
+            end = event.getEndTime();
+            phase = event.getString("phase");
+            bytes = event.getLong("allocatedBytes");
+        }
+
+        long nanos() {
+            return Duration.between(start, end).toNanos();
+        }
+
+        boolean contains(PhaseRun other) {
+            return thread == other.thread && !other.start.isBefore(start) && !other.end.isAfter(end);
+        }
+    }
+
+    private final Map<String, PhaseTotals> phases = new LinkedHashMap<>();
+    private final Map<String, BatchTotals> batches = new LinkedHashMap<>();
+    private long outermostNanos;
+    private long gcCount;
+    private long gcPauseNanos;
+
+    public static ProfileReport read(Path recording) throws IOException {
+        ProfileReport report = new ProfileReport();
+        List<PhaseRun> runs = new ArrayList<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "hamm.Phase":
+                        runs.add(new PhaseRun(event));
+                        break;
+                    case "hamm.Batch":
+                        report.addBatch(event);
+                        break;
+                    case "jdk.GarbageCollection":
+                        report.gcCount++;
+                        report.gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        report.addPhases(runs);
+        return report;
+    }
+
+    private void addBatch(RecordedEvent event) {
+        BatchTotals totals = batches.computeIfAbsent(event.getString("step"), k -> new BatchTotals());
+        totals.calls++;
+        totals.nanos += event.getDuration().toNanos();
+        totals.tasksAssigned += event.getLong("tasksAssigned");
+        totals.movesAccepted += event.getLong("movesAccepted");
+        totals.movesRejected += event.getLong("movesRejected");
+        totals.vmsScanned += event.getLong("vmsScanned");
+    }
+
+    /**
+     * Nests the runs of each thread by their intervals, outer runs first, and
+     * charges every run's time and bytes to the run directly around it.
+     */
+    private void addPhases(List<PhaseRun> runs) {
+        runs.sort(Comparator.<PhaseRun>comparingLong(run -> run.thread)
+                .thenComparing(run -> run.start)
+                .thenComparing(run -> run.end, Comparator.reverseOrder()));
+        Deque<PhaseRun> open = new ArrayDeque<>();
+        for (PhaseRun run : runs) {
+            while (!open.isEmpty() && !open.peek().contains(run)) {
+                open.pop();
+            }
+            if (open.isEmpty()) {
+                outermostNanos += run.nanos();
+            } else {
+                open.peek().childNanos += run.nanos();
+                open.peek().childBytes += run.bytes;
+            }
+            open.push(run);
+        }
+        // children were charged above, so the self totals can be taken now
+        runs.sort(Comparator.comparing(run -> run.start));
+        for (PhaseRun run : runs) {
+            PhaseTotals totals = phases.computeIfAbsent(run.phase, k -> new PhaseTotals());
+            totals.runs++;
+            totals.nanos += run.nanos();
+            totals.selfNanos += run.nanos() - run.childNanos;
+            totals.bytes += run.bytes;
+            totals.selfBytes += run.bytes - run.childBytes;
+        }
+    }
+
+    public Map<String, PhaseTotals> phases() {
+        return phases;
+    }
+
+    public Map<String, BatchTotals> batches() {
+        return batches;
+    }
+
+    public void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "%-12s %6s %12s %12s %7s %16s %16s",
+                "phase", "runs", "total ms", "self ms", "self %", "total bytes", "self bytes"));
+        for (Map.Entry<String, PhaseTotals> entry : phases.entrySet()) {
+            PhaseTotals totals = entry.getValue();
+            out.println(String.format(Locale.ROOT, "%-12s %6d %12.3f %12.3f %6.1f%% %16d %16d",
+                    entry.getKey(), totals.runs, totals.nanos / 1e6, totals.selfNanos / 1e6,
+                    outermostNanos == 0 ? 0 : 100.0 * totals.selfNanos / outermostNanos,
+                    totals.bytes, totals.selfBytes));
+        }
+        if (!batches.isEmpty()) {
+            out.println();
+            out.println(String.format(Locale.ROOT, "%-12s %6s %12s %14s %15s %15s %16s",
+                    "step", "calls", "ms", "tasks", "moves accepted", "moves rejected", "VM comparisons"));
+            for (Map.Entry<String, BatchTotals> entry : batches.entrySet()) {
+                BatchTotals totals = entry.getValue();
+                out.println(String.format(Locale.ROOT, "%-12s %6d %12.3f %14d %15d %15d %16d",
+                        entry.getKey(), totals.calls, totals.nanos / 1e6, totals.tasksAssigned,
+                        totals.movesAccepted, totals.movesRejected, totals.vmsScanned));
+            }
+        }
+        out.println();
+        out.println(String.format(Locale.ROOT, "Garbage collections: %d, paused %.3f ms", gcCount, gcPauseNanos / 1e6));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java hamm.ProfileReport recording.jfr");
+            System.exit(2);
+        }
+        read(Paths.get(args[0])).print(System.out);
+    }
+}
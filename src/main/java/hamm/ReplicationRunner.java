@@ -0,0 +1,269 @@
+package hamm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs full CloudSim simulations in parallel, one worker JVM per configuration.
+ *
+ * CloudSim keeps its simulation state in static fields, and so do the
+ * simulation classes, so two simulations cannot share a JVM. This runner
+ * launches HAMMSimulation or EHAMMSimulation as a child process for every
+ * configuration. At most --workers of them run at once, fed from a work queue.
+ * A worker that crashes, times out or exits without printing its Result line
+ * is retried up to --retries times. Results are read from the worker's stdout
+ * and written to a CSV as they come in.
+ *
+ * Usage: java hamm.ReplicationRunner [--seeds 1-10] [--tasks 100] [--vms 6] [--dist UNIFORM]
+ *        [--algorithms HAMM,EHAMM] [--workers 4] [--retries 2] [--timeout 600]
+ *        [--heap 1g] [--out replications.csv]
+ */
+public class ReplicationRunner {
+
+    private static final String RESULT_PREFIX = "Result,";
+
+    /** One simulation to run in its own JVM. */
+    static class Job {
+        final SchedulingAlgorithm algorithm;
+        final int taskCount;
+        final int vmCount;
+        final int seed;
+        final TaskDistribution distribution;
+
+        Job(SchedulingAlgorithm algorithm, int taskCount, int vmCount, int seed, TaskDistribution distribution) {
+            this.algorithm = algorithm;
+            this.taskCount = taskCount;
+            this.vmCount = vmCount;
+            this.seed = seed;
+            this.distribution = distribution;
+        }
+
+        String mainClass() {
+            switch (algorithm) {
+                case HAMM:
+                    return HAMMSimulation.class.getName();
+                case EHAMM:
+                    return EHAMMSimulation.class.getName();
+                default:
+                    throw new IllegalArgumentException("No simulation runs " + algorithm);
+            }
+        }
+
+        String describe() {
+            return algorithm + "," + taskCount + "," + vmCount + "," + seed + "," + distribution;
+        }
+    }
+
+    private final int retries;
+    private final long timeoutSeconds;
+    private final String heap;
+
+    public ReplicationRunner(int retries, long timeoutSeconds, String heap) {
+        this.retries = retries;
+        this.timeoutSeconds = timeoutSeconds;
+        this.heap = heap;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] seeds = {5555};
+        int[] taskCounts = {100};
+        int[] vmCounts = {6};
+        TaskDistribution[] distributions = {TaskDistribution.UNIFORM};
+        SchedulingAlgorithm[] algorithms = {SchedulingAlgorithm.HAMM, SchedulingAlgorithm.EHAMM};
+        int workers = Runtime.getRuntime().availableProcessors();
+        int retries = 2;
+        long timeout = 600;
+        String heap = "1g";
+        Path out = Paths.get("replications.csv");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seeds":
+                    seeds = SweepRunner.parseInts(value);
+                    break;
+                case "--tasks":
+                    taskCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--vms":
+                    vmCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--dist":
+                    distributions = SweepRunner.parseEnums(value, TaskDistribution.class);
+                    break;
+                case "--algorithms":
+                    algorithms = SweepRunner.parseEnums(value, SchedulingAlgorithm.class);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--retries":
+                    retries = Integer.parseInt(value);
+                    break;
+                case "--timeout":
+                    timeout = Long.parseLong(value);
+                    break;
+                case "--heap":
+                    heap = value;
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        for (int taskCount : taskCounts) {
+            for (int vmCount : vmCounts) {
+                for (TaskDistribution distribution : distributions) {
+                    for (SchedulingAlgorithm algorithm : algorithms) {
+                        for (int seed : seeds) {
+                            jobs.add(new Job(algorithm, taskCount, vmCount, seed, distribution));
+                        }
+                    }
+                }
+            }
+        }
+
+        System.out.println("Running " + jobs.size() + " simulations on " + workers + " worker JVMs");
+        int failed = new ReplicationRunner(retries, timeout, heap).run(jobs, workers, out);
+        System.out.println("Finished, " + failed + " failed, results in " + out);
+    }
+
+    /**
+     * Runs every job with at most workers child JVMs at once and writes one CSV
+     * row per job to out. Returns the number of jobs that failed every attempt.
+     */
+    public int run(List<Job> jobs, int workers, Path out) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        int failed = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("algorithm,tasks,vms,seed,distribution,makespan,load_variance,cloudlets,attempts,wall_ms,status");
+            writer.newLine();
+            writer.flush();
+
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(pool.submit(() -> {
+                    String row = runWithRetries(job);
+                    synchronized (writer) {
+                        writer.write(row);
+                        writer.newLine();
+                        writer.flush();
+                    }
+                    return row.endsWith(",ok");
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                if (!future.get()) {
+                    failed++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed;
+    }
+
+    private String runWithRetries(Job job) throws InterruptedException {
+        String lastError = "";
+        for (int attempt = 1; attempt <= retries + 1; attempt++) {
+            long start = System.nanoTime();
+            try {
+                String result = runOnce(job);
+                long millis = (System.nanoTime() - start) / 1000000;
+                // Result,algorithm,tasks,vms,seed,distribution,makespan,variance,cloudlets
+                String[] fields = result.split(",");
+                return String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%d,ok",
+                        job.describe(), fields[6], fields[7], fields[8], attempt, millis);
+            } catch (IOException e) {
+                lastError = e.getMessage();
+                System.err.println(job.describe() + " attempt " + attempt + " failed: " + lastError);
+            }
+        }
+        return job.describe() + ",,,," + (retries + 1) + ",,failed";
+    }
+
+    /**
+     * Runs job in a fresh JVM and returns its Result line.
+     *
+     * @throws IOException if the worker crashed, timed out or printed no result
+     */
+    private String runOnce(Job job) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-Xmx" + heap);
+        command.add("-Dhamm.quiet=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(job.mainClass());
+        command.add(Integer.toString(job.taskCount));
+        command.add(Integer.toString(job.vmCount));
+        command.add(Integer.toString(job.seed));
+        command.add(job.distribution.name());
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectInput(ProcessBuilder.Redirect.from(new File(nullDevice())))
+                .start();
+
+        // the worker runs on its own while its output is drained here, so a full pipe cannot stall it
+        String result = null;
+        String lastLine = "";
+        Thread timer = new Thread(() -> {
+            try {
+                if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+            }
+        });
+        timer.setDaemon(true);
+        timer.start();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = line;
+                } else if (!line.isEmpty()) {
+                    lastLine = line;
+                }
+            }
+        } finally {
+            process.waitFor();
+            timer.interrupt();
+        }
+
+        int exit = process.exitValue();
+        if (exit != 0) {
+            throw new IOException("worker exited with " + exit + ": " + lastLine);
+        }
+        if (result == null) {
+            throw new IOException("worker printed no result: " + lastLine);
+        }
+        return result;
+    }
+
+    private static String nullDevice() {
+        return System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null";
+    }
+}
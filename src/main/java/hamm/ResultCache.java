@@ -0,0 +1,384 @@
+package hamm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A content-addressed cache of schedules and their metrics, on disk with an
+ * in-memory LRU in front.
+ *
+ * An entry is keyed by everything that determines it: seed, task count, VM
+ * count, distribution, algorithm and the algorithm version. The version is a
+ * hash of the compiled classes the schedules come from, their nested and
+ * anonymous classes included (enum constants with bodies compile to Name$1
+ * and so on), so changing any of them makes every old entry unreachable
+ * without having to clear the cache.
+ * The key is hashed with SHA-256, and the entry is stored in
+ * dir/ab/abcdef....bin, named after the hash.
+ *
+ * The memory front keeps the most recently used entries up to a byte budget
+ * and evicts the least recently used ones beyond it. Files are written to a
+ * temporary name first and then moved into place, so concurrent writers and
+ * crashes never leave a half written entry behind. A file that is truncated or
+ * corrupt anyway, say by a full disk or a copy gone wrong, counts as a miss
+ * and is deleted, so the cell is computed and written again.
+ *
+ * An entry file is little endian: magic, format version, the key (so a hash
+ * collision is detected, not returned), the three metrics as doubles, then
+ * the task sizes and VMs of the schedule, each packed into the fewest bytes
+ * (1 to 4) that hold its largest value.
+ */
+public class ResultCache {
+
+    private static final int MAGIC = 0x48524331; // "HRC1"
+    private static final byte FORMAT = 1;
+
+    // the classes whose code decides what a schedule looks like; SweepRunner holds the VM speed
+    private static final Class<?>[] ALGORITHM_CLASSES = {
+            HAMMSimulation.class, EHAMMSimulation.class, SchedulingAlgorithm.class, TaskDistribution.class,
+            TaskPool.class, VmLoadIndex.class, VmSpeedIndex.class, TaskHeaps.class, Schedule.class,
+            MakespanEvaluator.class, RunMetrics.class, SweepRunner.class};
+
+    private static volatile String algorithmVersion;
+
+    /** A cached schedule and what it measured. */
+    public static class Entry {
+        final double makespan;
+        final double loadVariance;
+        final double schedulingMillis;
+        final int vmCount;
+        final int[] sizes;
+        final int[] vmOf;
+
+        public Entry(Schedule schedule, double makespan, double loadVariance, double schedulingMillis) {
+            this(makespan, loadVariance, schedulingMillis, schedule.vmCount(),
+                    new int[schedule.taskCount()], new int[schedule.taskCount()]);
+            for (int task = 0; task < sizes.length; task++) {
+                sizes[task] = schedule.taskSize(task);
+                vmOf[task] = schedule.vmOf(task);
+            }
+        }
+
+        private Entry(double makespan, double loadVariance, double schedulingMillis, int vmCount, int[] sizes, int[] vmOf) {
+            this.makespan = makespan;
+            this.loadVariance = loadVariance;
+            this.schedulingMillis = schedulingMillis;
+            this.vmCount = vmCount;
+            this.sizes = sizes;
+            this.vmOf = vmOf;
+        }
+
+        public double makespan() {
+            return makespan;
+        }
+
+        public double loadVariance() {
+            return loadVariance;
+        }
+
+        public double schedulingMillis() {
+            return schedulingMillis;
+        }
+
+        /** The cached schedule, tasks in their original order. */
+        public Schedule schedule() {
+            Schedule schedule = new Schedule(vmCount, sizes.length);
+            for (int task = 0; task < sizes.length; task++) {
+                schedule.assign(sizes[task], vmOf[task]);
+            }
+            return schedule;
+        }
+
+        long bytes() {
+            return 64 + 8L * sizes.length;
+        }
+    }
+
+    private final Path dir;
+    private final long memoryBytes;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryUsed;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+
+    /**
+     * @param memoryBytes how many bytes of entries the memory front may hold
+     */
+    public ResultCache(Path dir, long memoryBytes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * The key of one sweep cell, including the algorithm version.
+     */
+    public static String key(int seed, int taskCount, int vmCount, TaskDistribution distribution,
+                             SchedulingAlgorithm algorithm) {
+        return key(seed, taskCount, vmCount, distribution, algorithm, algorithmVersion());
+    }
+
+    /**
+     * The key of one sweep cell under the given algorithm version.
+     */
+    public static String key(int seed, int taskCount, int vmCount, TaskDistribution distribution,
+                             SchedulingAlgorithm algorithm, String version) {
+        return seed + "," + taskCount + "," + vmCount + "," + distribution + "," + algorithm + "," + version;
+    }
+
+    /**
+     * SHA-256 of the compiled algorithm classes, in hex.
+     */
+    public static String algorithmVersion() {
+        String version = algorithmVersion;
+        if (version == null) {
+            version = algorithmVersion(ResultCache.class.getClassLoader());
+            algorithmVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * SHA-256 of the algorithm classes as loader finds their class files, in
+     * hex.
+     */
+    static String algorithmVersion(ClassLoader loader) {
+        MessageDigest digest = sha256();
+        for (Class<?> type : ALGORITHM_CLASSES) {
+            hashClass(loader, type, digest);
+        }
+        return hex(digest.digest());
+    }
+
+    /** Hashes type's class file, then those of its anonymous and nested classes. */
+    private static void hashClass(ClassLoader loader, Class<?> type, MessageDigest digest) {
+        String file = type.getName().replace('.', '/');
+        if (!hashFile(loader, file + ".class", digest)) {
+            throw new IllegalStateException("No class file for " + type.getName());
+        }
+        // anonymous classes are numbered from 1 without gaps
+        int anonymous = 1;
+        while (hashFile(loader, file + "$" + anonymous + ".class", digest)) {
+            anonymous++;
+        }
+        Class<?>[] nested = type.getDeclaredClasses();
+        Arrays.sort(nested, Comparator.comparing(Class::getName));
+        for (Class<?> inner : nested) {
+            hashClass(loader, inner, digest);
+        }
+    }
+
+    /** Adds the resource name and its content to digest, false if there is none. */
+    private static boolean hashFile(ClassLoader loader, String name, MessageDigest digest) {
+        try (InputStream in = loader.getResourceAsStream(name)) {
+            if (in == null) {
+                return false;
+            }
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The entry for key, from memory or disk, or null if it was never put.
+     */
+    public Entry get(String key) throws IOException {
+        synchronized (this) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                memoryHits++;
+                return entry;
+            }
+        }
+        Entry entry = read(key);
+        synchronized (this) {
+            if (entry == null) {
+                misses++;
+            } else {
+                diskHits++;
+                remember(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public void put(String key, Entry entry) throws IOException {
+        write(key, entry);
+        synchronized (this) {
+            remember(key, entry);
+        }
+    }
+
+    public synchronized long memoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long diskHits() {
+        return diskHits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    private void remember(String key, Entry entry) {
+        if (entry.bytes() > memoryBytes) {
+            return;
+        }
+        Entry old = memory.put(key, entry);
+        memoryUsed += entry.bytes() - (old == null ? 0 : old.bytes());
+        Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+        while (memoryUsed > memoryBytes && eldest.hasNext()) {
+            memoryUsed -= eldest.next().getValue().bytes();
+            eldest.remove();
+        }
+    }
+
+    private Path path(String key) {
+        String hash = hex(sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+        return dir.resolve(hash.substring(0, 2)).resolve(hash + ".bin");
+    }
+
+    private Entry read(String key) throws IOException {
+        Path path = path(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            return decode(key, in);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException and friends: the file is damaged, so drop it
+            Files.deleteIfExists(path);
+            return null;
+        }
+    }
+
+    /**
+     * The entry in, null if it belongs to another key whose hash collides.
+     * Throws an unchecked exception if the bytes are not a whole entry.
+     */
+    private static Entry decode(String key, ByteBuffer in) {
+        if (in.getInt() != MAGIC || in.get() != FORMAT) {
+            throw new IllegalStateException("not a cache entry");
+        }
+        byte[] storedKey = new byte[checkLength(in, in.getInt(), 1)];
+        in.get(storedKey);
+        if (!key.equals(new String(storedKey, StandardCharsets.UTF_8))) {
+            return null;
+        }
+        double makespan = in.getDouble();
+        double loadVariance = in.getDouble();
+        double schedulingMillis = in.getDouble();
+        int vmCount = in.getInt();
+        int[] sizes = unpack(in);
+        int[] vmOf = unpack(in);
+        if (in.hasRemaining() || sizes.length != vmOf.length) {
+            throw new IllegalStateException("malformed cache entry");
+        }
+        return new Entry(makespan, loadVariance, schedulingMillis, vmCount, sizes, vmOf);
+    }
+
+    private void write(String key, Entry entry) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int sizeWidth = width(entry.sizes);
+        int vmWidth = width(entry.vmOf);
+        ByteBuffer out = ByteBuffer.allocate(4 + 1 + 4 + keyBytes.length + 3 * 8 + 4
+                + 2 * 5 + entry.sizes.length * (sizeWidth + vmWidth)).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).put(FORMAT).putInt(keyBytes.length).put(keyBytes);
+        out.putDouble(entry.makespan).putDouble(entry.loadVariance).putDouble(entry.schedulingMillis);
+        out.putInt(entry.vmCount);
+        pack(out, entry.sizes, sizeWidth);
+        pack(out, entry.vmOf, vmWidth);
+
+        Path path = path(key);
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, out.array());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Bytes needed for the largest of values, which must not be negative. */
+    private static int width(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            max |= value;
+        }
+        return max < (1 << 8) ? 1 : max < (1 << 16) ? 2 : max < (1 << 24) ? 3 : 4;
+    }
+
+    private static void pack(ByteBuffer out, int[] values, int width) {
+        out.putInt(values.length).put((byte) width);
+        for (int value : values) {
+            for (int b = 0; b < width; b++) {
+                out.put((byte) (value >>> (8 * b)));
+            }
+        }
+    }
+
+    private static int[] unpack(ByteBuffer in) {
+        int length = in.getInt();
+        int width = in.get();
+        if (width < 1 || width > 4) {
+            throw new IllegalStateException("bad packing width " + width);
+        }
+        int[] values = new int[checkLength(in, length, width)];
+        for (int i = 0; i < values.length; i++) {
+            int value = 0;
+            for (int b = 0; b < width; b++) {
+                value |= (in.get() & 0xff) << (8 * b);
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /** length, if that many items of width bytes are left in in; a corrupt length must not allocate. */
+    private static int checkLength(ByteBuffer in, int length, int width) {
+        if (length < 0 || (long) length * width > in.remaining()) {
+            throw new IllegalStateException("length " + length + " runs past the end of the entry");
+        }
+        return length;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
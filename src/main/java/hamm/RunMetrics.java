@@ -0,0 +1,348 @@
+package hamm;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What a scheduling run did and what it cost.
+ *
+ * Phases are timed with begin(name) and end(name): wall time and the bytes the
+ * calling thread allocated, summed over every time the phase ran. Phases may
+ * nest, and a phase's totals include the phases run inside it, so
+ * "simulation" includes the broker's "HAMM", "reschedule", "binding" and
+ * "dispatch".
+ *
+ * record() derives the load based metrics of a schedule: per-VM load, task
+ * count, busy time and utilization, the makespan, flowtime and completion
+ * time percentiles from a MakespanEvaluator, the variance of the loads and
+ * the max/avg load imbalance. Everything can be printed or written as JSON and CSV.
+ *
+ * Every phase is also committed as a SchedulerEvents.Phase, so a Java Flight
+ * Recorder recording shows the same breakdown.
+ *
+ * The disabled instance ignores begin() and end(), so code can always be
+ * instrumented and only pays for it when someone asks.
+ */
+public class RunMetrics {
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int MAX_DEPTH = 16;
+
+    private static final RunMetrics DISABLED = new RunMetrics(false);
+
+    private final boolean enabled;
+
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<long[]> phaseTotals = new ArrayList<>(); // {runs, wall ns, bytes}
+    private final String[] open = new String[MAX_DEPTH];
+    private final long[] openNanos = new long[MAX_DEPTH];
+    private final long[] openBytes = new long[MAX_DEPTH];
+    private final SchedulerEvents.Phase[] openEvents = new SchedulerEvents.Phase[MAX_DEPTH];
+    private int depth;
+
+    private long[] loads = new long[0];
+    private int[] taskCounts = new int[0];
+    private double[] busyTimes = new double[0];
+    private double makespan;
+    private double flowtime;
+    private double[] completionTimes = new double[0];
+    private int taskCount;
+
+    public RunMetrics() {
+        this(true);
+    }
+
+    private RunMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** A shared instance that ignores every phase and cannot record a schedule. */
+    public static RunMetrics disabled() {
+        return DISABLED;
+    }
+
+    public void begin(String phase) {
+        if (!enabled) {
+            return;
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("phases nested deeper than " + MAX_DEPTH);
+        }
+        open[depth] = phase;
+        openEvents[depth] = new SchedulerEvents.Phase();
+        openBytes[depth] = allocatedBytes();
+        openEvents[depth].begin();
+        openNanos[depth] = System.nanoTime();
+        depth++;
+    }
+
+    public void end(String phase) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime();
+        if (depth == 0 || !open[depth - 1].equals(phase)) {
+            throw new IllegalStateException("ending " + phase + " but " + (depth == 0 ? "no phase" : open[depth - 1]) + " is open");
+        }
+        depth--;
+        SchedulerEvents.Phase event = openEvents[depth];
+        openEvents[depth] = null;
+        event.end();
+        long[] totals = totals(phase);
+        totals[0]++;
+        totals[1] += nanos - openNanos[depth];
+        long bytes = allocatedBytes() - openBytes[depth];
+        totals[2] += bytes;
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.allocatedBytes = bytes;
+            event.commit();
+        }
+    }
+
+    private long[] totals(String phase) {
+        int i = phaseNames.indexOf(phase);
+        if (i < 0) {
+            phaseNames.add(phase);
+            phaseTotals.add(new long[3]);
+            i = phaseNames.size() - 1;
+        }
+        return phaseTotals.get(i);
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public List<String> phases() {
+        return phaseNames;
+    }
+
+    /** Total wall time of phase in milliseconds, 0 if it never ran. */
+    public double phaseMillis(String phase) {
+        int i = phaseNames.indexOf(phase);
+        return i < 0 ? 0 : phaseTotals.get(i)[1] / 1e6;
+    }
+
+    /** Total bytes allocated during phase, 0 if it never ran. */
+    public long phaseBytes(String phase) {
+        int i = phaseNames.indexOf(phase);
+        return i < 0 ? 0 : phaseTotals.get(i)[2];
+    }
+
+    /**
+     * Takes the load metrics of schedule, with times from evaluator, which
+     * must have just evaluated it.
+     */
+    public RunMetrics record(Schedule schedule, MakespanEvaluator evaluator) {
+        if (!enabled) {
+            throw new IllegalStateException("the disabled metrics are shared and record nothing");
+        }
+        int vmCount = schedule.vmCount();
+        loads = new long[vmCount];
+        taskCounts = new int[vmCount];
+        busyTimes = new double[vmCount];
+        for (int vm = 0; vm < vmCount; vm++) {
+            loads[vm] = schedule.load(vm);
+            taskCounts[vm] = schedule.taskCount(vm);
+            busyTimes[vm] = evaluator.busyTime(vm);
+        }
+        taskCount = schedule.taskCount();
+        makespan = evaluator.makespan();
+        flowtime = 0;
+        completionTimes = new double[taskCount];
+        for (int task = 0; task < taskCount; task++) {
+            completionTimes[task] = evaluator.finishTime(task);
+            flowtime += completionTimes[task];
+        }
+        Arrays.sort(completionTimes);
+        return this;
+    }
+
+    public int vmCount() {
+        return loads.length;
+    }
+
+    public long load(int vm) {
+        return loads[vm];
+    }
+
+    public int taskCount(int vm) {
+        return taskCounts[vm];
+    }
+
+    public double busyTime(int vm) {
+        return busyTimes[vm];
+    }
+
+    /** Share of the makespan vm spends running cloudlets. */
+    public double utilization(int vm) {
+        return makespan == 0 ? 0 : busyTimes[vm] / makespan;
+    }
+
+    public double makespan() {
+        return makespan;
+    }
+
+    /** Sum over all tasks of the time from submission to completion. */
+    public double flowtime() {
+        return flowtime;
+    }
+
+    public double meanFlowtime() {
+        return taskCount == 0 ? 0 : flowtime / taskCount;
+    }
+
+    /**
+     * The completion time, from submission, that percent of the tasks finish
+     * by (nearest rank).
+     */
+    public double completionPercentile(double percent) {
+        if (completionTimes.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * completionTimes.length);
+        return completionTimes[Math.max(0, Math.min(completionTimes.length, rank) - 1)];
+    }
+
+    public double averageLoad() {
+        long total = 0;
+        for (long load : loads) {
+            total += load;
+        }
+        return loads.length == 0 ? 0 : (double) total / loads.length;
+    }
+
+    /**
+     * Sample variance of the VM loads, the same formula calculateLoadBalance
+     * applies to task counts.
+     */
+    public double loadVariance() {
+        int n = loads.length;
+        double mean = averageLoad();
+        double sum = 0;
+        for (long load : loads) {
+            sum += (load - mean) * (load - mean);
+        }
+        return sum / (n - 1);
+    }
+
+    /**
+     * loadVariance() of schedule without recording it, for callers that have
+     * no evaluator.
+     */
+    public static double loadVariance(Schedule schedule) {
+        int n = schedule.vmCount();
+        double mean = 0;
+        for (int vm = 0; vm < n; vm++) {
+            mean += schedule.load(vm);
+        }
+        mean /= n;
+        double sum = 0;
+        for (int vm = 0; vm < n; vm++) {
+            sum += (schedule.load(vm) - mean) * (schedule.load(vm) - mean);
+        }
+        return sum / (n - 1);
+    }
+
+    /** Largest load over the average load, 1 when perfectly balanced. */
+    public double imbalance() {
+        double average = averageLoad();
+        long max = 0;
+        for (long load : loads) {
+            max = Math.max(max, load);
+        }
+        return average == 0 ? 1 : max / average;
+    }
+
+    public double averageUtilization() {
+        double sum = 0;
+        for (int vm = 0; vm < loads.length; vm++) {
+            sum += utilization(vm);
+        }
+        return loads.length == 0 ? 0 : sum / loads.length;
+    }
+
+    public void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "Makespan: %.4f, flowtime: %.4f (mean %.4f), utilization: %.4f",
+                makespan, flowtime, meanFlowtime(), averageUtilization()));
+        out.println(String.format(Locale.ROOT, "Load variance: %.4f, imbalance (max/avg load): %.6f",
+                loadVariance(), imbalance()));
+        out.println(String.format(Locale.ROOT, "Completion time p50: %.4f, p95: %.4f, p99: %.4f",
+                completionPercentile(50), completionPercentile(95), completionPercentile(99)));
+        for (int i = 0; i < phaseNames.size(); i++) {
+            long[] totals = phaseTotals.get(i);
+            out.println(String.format(Locale.ROOT, "Phase %-12s %10.3f ms %14d bytes %6d runs",
+                    phaseNames.get(i), totals[1] / 1e6, totals[2], totals[0]));
+        }
+    }
+
+    /** Writes everything as one JSON object. */
+    public void writeJson(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(String.format(Locale.ROOT,
+                    "{\"makespan\":%s,\"flowtime\":%s,\"mean_flowtime\":%s,\"load_variance\":%s,\"imbalance\":%s,"
+                            + "\"utilization\":%s,\"completion_p50\":%s,\"completion_p95\":%s,\"completion_p99\":%s,"
+                            + "\"tasks\":%d,",
+                    number(makespan), number(flowtime), number(meanFlowtime()), number(loadVariance()),
+                    number(imbalance()), number(averageUtilization()), number(completionPercentile(50)),
+                    number(completionPercentile(95)), number(completionPercentile(99)), taskCount));
+            out.write("\"phases\":[");
+            for (int i = 0; i < phaseNames.size(); i++) {
+                long[] totals = phaseTotals.get(i);
+                out.write(String.format(Locale.ROOT, "%s{\"name\":\"%s\",\"runs\":%d,\"wall_ms\":%s,\"allocated_bytes\":%d}",
+                        i > 0 ? "," : "", phaseNames.get(i), totals[0], number(totals[1] / 1e6), totals[2]));
+            }
+            out.write("],\"vms\":[");
+            for (int vm = 0; vm < loads.length; vm++) {
+                out.write(String.format(Locale.ROOT, "%s{\"vm\":%d,\"tasks\":%d,\"load\":%d,\"busy_time\":%s,\"utilization\":%s}",
+                        vm > 0 ? "," : "", vm, taskCounts[vm], loads[vm], number(busyTimes[vm]), number(utilization(vm))));
+            }
+            out.write("]}");
+            out.newLine();
+        }
+    }
+
+    /**
+     * Writes one row per VM to path, and one row per phase to a -phases.csv
+     * file next to it.
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("vm,tasks,load,busy_time,utilization");
+            out.newLine();
+            for (int vm = 0; vm < loads.length; vm++) {
+                out.write(String.format(Locale.ROOT, "%d,%d,%d,%.6f,%.6f",
+                        vm, taskCounts[vm], loads[vm], busyTimes[vm], utilization(vm)));
+                out.newLine();
+            }
+        }
+        String name = path.getFileName().toString();
+        String base = name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        try (BufferedWriter out = Files.newBufferedWriter(path.resolveSibling(base + "-phases.csv"), StandardCharsets.UTF_8)) {
+            out.write("phase,runs,wall_ms,allocated_bytes");
+            out.newLine();
+            for (int i = 0; i < phaseNames.size(); i++) {
+                long[] totals = phaseTotals.get(i);
+                out.write(String.format(Locale.ROOT, "%s,%d,%.6f,%d", phaseNames.get(i), totals[0], totals[1] / 1e6, totals[2]));
+                out.newLine();
+            }
+        }
+    }
+
+    // JSON has no NaN or infinity, variance of a single VM is NaN
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+}
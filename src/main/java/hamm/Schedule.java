@@ -0,0 +1,176 @@
+package hamm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A schedule of tasks onto VMs, stored as primitive arrays.
+ *
+ * Each task has an index (the order it was assigned in), a size and the index of
+ * the VM it runs on. The load and task count of every VM are cached and kept up
+ * to date as tasks are assigned or moved, so nothing has to re-sum a VM and no
+ * task is ever boxed.
+ */
+public class Schedule {
+
+    private final int vmCount;
+    private final long[] loads;
+    private final int[] counts;
+    private int[] sizes;
+    private int[] vmOf;
+    private int taskCount;
+
+    public Schedule(int vmCount, int expectedTasks) {
+        this.vmCount = vmCount;
+        loads = new long[vmCount];
+        counts = new int[vmCount];
+        sizes = new int[Math.max(expectedTasks, 1)];
+        vmOf = new int[sizes.length];
+    }
+
+    /**
+     * Builds a schedule from the nested list form, vm i being vms.get(i).
+     */
+    public static Schedule fromLists(List<List<Integer>> vms) {
+        int total = 0;
+        for (List<Integer> vm : vms) {
+            total += vm.size();
+        }
+        Schedule schedule = new Schedule(vms.size(), total);
+        for (int i = 0; i < vms.size(); i++) {
+            for (int size : vms.get(i)) {
+                schedule.assign(size, i);
+            }
+        }
+        return schedule;
+    }
+
+    private Schedule(Schedule other) {
+        vmCount = other.vmCount;
+        loads = other.loads.clone();
+        counts = other.counts.clone();
+        sizes = Arrays.copyOf(other.sizes, other.taskCount);
+        vmOf = Arrays.copyOf(other.vmOf, other.taskCount);
+        taskCount = other.taskCount;
+    }
+
+    public Schedule copy() {
+        return new Schedule(this);
+    }
+
+    /**
+     * Adds a task to vm and returns the index of the new task.
+     */
+    public int assign(int size, int vm) {
+        if (taskCount == sizes.length) {
+            int capacity = sizes.length + (sizes.length >> 1) + 1;
+            sizes = Arrays.copyOf(sizes, capacity);
+            vmOf = Arrays.copyOf(vmOf, capacity);
+        }
+        sizes[taskCount] = size;
+        vmOf[taskCount] = vm;
+        loads[vm] += size;
+        counts[vm]++;
+        return taskCount++;
+    }
+
+    /**
+     * Moves an already assigned task to another vm.
+     */
+    public void move(int task, int vm) {
+        int from = vmOf[task];
+        loads[from] -= sizes[task];
+        counts[from]--;
+        vmOf[task] = vm;
+        loads[vm] += sizes[task];
+        counts[vm]++;
+    }
+
+    public int vmCount() {
+        return vmCount;
+    }
+
+    public int taskCount() {
+        return taskCount;
+    }
+
+    public int taskSize(int task) {
+        return sizes[task];
+    }
+
+    public int vmOf(int task) {
+        return vmOf[task];
+    }
+
+    /** Sum of the sizes of the tasks on vm. */
+    public long load(int vm) {
+        return loads[vm];
+    }
+
+    /** Number of tasks on vm. */
+    public int taskCount(int vm) {
+        return counts[vm];
+    }
+
+    /**
+     * Groups the task indices by vm. The tasks of vm i end up in
+     * result[offsets[i]] to result[offsets[i + 1] - 1], in the order they were
+     * assigned. offsets must have room for vmCount() + 1 entries.
+     */
+    public int[] tasksByVm(int[] offsets) {
+        return tasksByVm(offsets, new int[taskCount], new int[vmCount]);
+    }
+
+    /**
+     * Same as tasksByVm(int[]), but fills tasks (at least taskCount() long)
+     * using next (at least vmCount() long) as scratch space, so repeated calls
+     * allocate nothing.
+     */
+    public int[] tasksByVm(int[] offsets, int[] tasks, int[] next) {
+        offsets[0] = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            offsets[vm + 1] = offsets[vm] + counts[vm];
+            next[vm] = offsets[vm];
+        }
+        for (int task = 0; task < taskCount; task++) {
+            tasks[next[vmOf[task]]++] = task;
+        }
+        return tasks;
+    }
+
+    /**
+     * Converts back to the nested list form, one list of task sizes per vm.
+     */
+    public List<List<Integer>> toLists() {
+        List<List<Integer>> vms = new ArrayList<>();
+        for (int vm = 0; vm < vmCount; vm++) {
+            vms.add(new ArrayList<>(counts[vm]));
+        }
+        for (int task = 0; task < taskCount; task++) {
+            vms.get(vmOf[task]).add(sizes[task]);
+        }
+        return vms;
+    }
+
+    @Override
+    public String toString() {
+        int[] offsets = new int[vmCount + 1];
+        int[] tasks = tasksByVm(offsets);
+        StringBuilder sb = new StringBuilder("[");
+        for (int vm = 0; vm < vmCount; vm++) {
+            if (vm > 0) {
+                sb.append(", ");
+            }
+            sb.append('[');
+            for (int i = offsets[vm]; i < offsets[vm + 1]; i++) {
+                if (i > offsets[vm]) {
+                    sb.append(", ");
+                }
+                sb.append(sizes[tasks[i]]);
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,84 @@
+package hamm;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the scheduler and the simulations.
+ *
+ * A Phase event covers one RunMetrics phase (topology, cloudlets, HAMM,
+ * reschedule, binding, dispatch, simulation) and carries the bytes the thread
+ * allocated during it. A Batch event is committed once per HAMM or
+ * reschedule call, with counters for what the call did.
+ *
+ * Both are enabled in every recording, for example with
+ * java -XX:StartFlightRecording=filename=run.jfr EHAMMSimulation 100000 60,
+ * and ProfileReport summarises them. Without a recording an event is one
+ * allocation and a check of shouldCommit(), once per phase or call, never
+ * per task.
+ */
+public final class SchedulerEvents {
+
+    private SchedulerEvents() {
+    }
+
+    @Name("hamm.Phase")
+    @Label("Scheduling Phase")
+    @Category("HAMM")
+    @Description("A phase timed by RunMetrics")
+    @StackTrace(false)
+    public static class Phase extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+
+    @Name("hamm.Batch")
+    @Label("Scheduling Batch")
+    @Category("HAMM")
+    @Description("One call of HAMM or reschedule")
+    @StackTrace(false)
+    public static class Batch extends Event {
+        @Label("Step")
+        String step;
+
+        @Label("VMs")
+        int vms;
+
+        @Label("Tasks Assigned")
+        long tasksAssigned;
+
+        @Label("Moves Accepted")
+        long movesAccepted;
+
+        @Label("Moves Rejected")
+        long movesRejected;
+
+        @Label("VM Comparisons")
+        @Description("Comparisons of VM loads, finish times or scores made by the heaps and scans behind the decisions")
+        long vmsScanned;
+
+        /** Ends the event and commits it with these counters, if it is recorded. */
+        public void record(String step, int vms, long tasksAssigned, long movesAccepted, long movesRejected,
+                           long vmsScanned) {
+            end();
+            if (shouldCommit()) {
+                this.step = step;
+                this.vms = vms;
+                this.tasksAssigned = tasksAssigned;
+                this.movesAccepted = movesAccepted;
+                this.movesRejected = movesRejected;
+                this.vmsScanned = vmsScanned;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The scheduling algorithms an experiment can compare. HAMM and EHAMM balance
+ * raw task sizes over identical VMs; the SPEED_ variants balance finish times
+ * over VMs of different speeds.
+ */
+public enum SchedulingAlgorithm {
+
+    HAMM {
+        @Override
+        public Schedule schedule(int[] taskSizes, int vmCount, RunMetrics metrics) {
+            metrics.begin("HAMM");
+            Schedule schedule = HAMMSimulation.HAMM(taskSizes, vmCount);
+            metrics.end("HAMM");
+            return schedule;
+        }
+    },
+
+    /** HAMM followed by the EHAMM rebalancing step. */
+    EHAMM {
+        @Override
+        public Schedule schedule(int[] taskSizes, int vmCount, RunMetrics metrics) {
+            Schedule schedule = HAMM.schedule(taskSizes, vmCount, metrics);
+            metrics.begin("reschedule");
+            EHAMMSimulation.reschedule(schedule);
+            metrics.end("reschedule");
+            return schedule;
+        }
+    },
+
+    /**
+     * HAMM placing every task on the VM that would finish it earliest. On
+     * identical VMs this is HAMM's schedule.
+     */
+    SPEED_HAMM {
+        @Override
+        public Schedule schedule(int[] taskSizes, int vmCount, RunMetrics metrics) {
+            return schedule(taskSizes, identical(vmCount), metrics);
+        }
+
+        @Override
+        public Schedule schedule(int[] taskSizes, double[] capacities, RunMetrics metrics) {
+            metrics.begin("HAMM");
+            Schedule schedule = HAMMSimulation.HAMM(taskSizes, capacities);
+            metrics.end("HAMM");
+            return schedule;
+        }
+    },
+
+    /** SPEED_HAMM followed by the speed aware rebalancing step. */
+    SPEED_EHAMM {
+        @Override
+        public Schedule schedule(int[] taskSizes, int vmCount, RunMetrics metrics) {
+            return schedule(taskSizes, identical(vmCount), metrics);
+        }
+
+        @Override
+        public Schedule schedule(int[] taskSizes, double[] capacities, RunMetrics metrics) {
+            Schedule schedule = SPEED_HAMM.schedule(taskSizes, capacities, metrics);
+            metrics.begin("reschedule");
+            EHAMMSimulation.reschedule(schedule, capacities);
+            metrics.end("reschedule");
+            return schedule;
+        }
+    };
+
+    public Schedule schedule(int[] taskSizes, int vmCount) {
+        return schedule(taskSizes, vmCount, RunMetrics.disabled());
+    }
+
+    /**
+     * Schedules taskSizes, timing each step as a phase of metrics.
+     */
+    public abstract Schedule schedule(int[] taskSizes, int vmCount, RunMetrics metrics);
+
+    /**
+     * Schedules taskSizes onto VMs with these capacities (MIPS times PEs).
+     * HAMM and EHAMM only use how many there are.
+     */
+    public Schedule schedule(int[] taskSizes, double[] capacities, RunMetrics metrics) {
+        return schedule(taskSizes, capacities.length, metrics);
+    }
+
+    /**
+     * Schedules taskSizes onto vms, see schedule(int[], double[], RunMetrics).
+     */
+    public Schedule schedule(int[] taskSizes, List<? extends Vm> vms, RunMetrics metrics) {
+        return schedule(taskSizes, HAMMSimulation.capacities(vms), metrics);
+    }
+
+    /** Whether the algorithm takes VM speeds into account. */
+    public boolean isSpeedAware() {
+        return this == SPEED_HAMM || this == SPEED_EHAMM;
+    }
+
+    private static double[] identical(int vmCount) {
+        double[] capacities = new double[vmCount];
+        Arrays.fill(capacities, 1);
+        return capacities;
+    }
+}
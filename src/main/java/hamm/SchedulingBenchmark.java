@@ -0,0 +1,248 @@
+package hamm;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the scheduling algorithms over task count, VM count and
+ * task size distribution.
+ *
+ * Each benchmark runs in throughput and average time mode. The "tasks"
+ * counter counts the tasks every call scheduled, so next to the per call
+ * numbers JMH reports tasks per second and time per task. main() adds the GC
+ * profiler for the allocation rate and bytes per call. Inputs a benchmark
+ * consumes, like the HAMM schedule reschedule works on, are reset before each
+ * call outside the measurement.
+ *
+ * The nested list API rescans every task per assignment, so ListApi has its
+ * own, smaller task counts.
+ *
+ * Usage: java -cp target/hamm.jar:lib/cloudsim-3.0.3.jar hamm.SchedulingBenchmark
+ *        [--tasks 100,1e4] [--vms 2,6] [--dist UNIFORM,BIMODAL] [--bench hamm,reschedule]
+ *        [--iterations 5] [--seconds 1]
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingBenchmark {
+
+    private static final String[] BENCHMARKS = {
+            "hamm", "reschedule", "calculateLoadBalance", "listHamm", "maxMin", "minMin", "addToMinVM"};
+
+    // the list benchmarks rescan every task per assignment, larger inputs never finish
+    private static final int LIST_TASK_LIMIT = 10000;
+
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int taskCount;
+
+    @Param({"2", "6", "100", "10000"})
+    public int vmCount;
+
+    @Param({"UNIFORM", "HEAVY_TAILED", "BIMODAL"})
+    public TaskDistribution distribution;
+
+    private int[] tasks;
+    private Schedule hammSchedule;
+    private Schedule schedule;
+
+    /** Tasks scheduled, reported per second and per unit of time. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tasks {
+        public long tasks;
+    }
+
+    @Setup(Level.Trial)
+    public void generate() {
+        tasks = distribution.generate(taskCount, 5555);
+        hammSchedule = HAMMSimulation.HAMM(tasks, vmCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void copySchedule() {
+        // reschedule works in place, so each call gets a fresh HAMM result
+        schedule = hammSchedule.copy();
+    }
+
+    @Benchmark
+    public Schedule hamm(Tasks counter) {
+        counter.tasks += taskCount;
+        return HAMMSimulation.HAMM(tasks, vmCount);
+    }
+
+    @Benchmark
+    public Schedule reschedule(Tasks counter) {
+        counter.tasks += taskCount;
+        return EHAMMSimulation.reschedule(schedule);
+    }
+
+    @Benchmark
+    public double calculateLoadBalance(Tasks counter) {
+        counter.tasks += taskCount;
+        return HAMMSimulation.calculateLoadBalance(hammSchedule);
+    }
+
+    /** The nested list API, which consumes its task list and fills its vm lists. */
+    @State(Scope.Thread)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class ListApi {
+
+        @Param({"100", "1000", "10000"})
+        public int listTaskCount;
+
+        @Param({"2", "6", "100", "10000"})
+        public int vmCount;
+
+        @Param({"UNIFORM", "HEAVY_TAILED", "BIMODAL"})
+        public TaskDistribution distribution;
+
+        private final List<Integer> tasks = new ArrayList<>();
+        private List<Integer> remaining;
+        private List<List<Integer>> vms;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            for (int size : distribution.generate(listTaskCount, 5555)) {
+                tasks.add(size);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            remaining = new ArrayList<>(tasks);
+            vms = new ArrayList<>();
+            for (int i = 0; i < vmCount; i++) {
+                vms.add(new ArrayList<>());
+            }
+        }
+
+        @Benchmark
+        public List<List<Integer>> listHamm(Tasks counter) {
+            counter.tasks += listTaskCount;
+            return HAMMSimulation.HAMM(remaining, vmCount);
+        }
+
+        @Benchmark
+        public List<List<Integer>> maxMin(Tasks counter) {
+            counter.tasks += listTaskCount;
+            while (!remaining.isEmpty()) {
+                HAMMSimulation.maxMin(remaining, vms);
+            }
+            return vms;
+        }
+
+        @Benchmark
+        public List<List<Integer>> minMin(Tasks counter) {
+            counter.tasks += listTaskCount;
+            while (!remaining.isEmpty()) {
+                HAMMSimulation.minMin(remaining, vms);
+            }
+            return vms;
+        }
+
+        @Benchmark
+        public List<List<Integer>> addToMinVM(Tasks counter) {
+            counter.tasks += listTaskCount;
+            for (Integer size : remaining) {
+                HAMMSimulation.addToMinVM(size, vms);
+            }
+            return vms;
+        }
+    }
+
+    /**
+     * Runs the benchmarks with the GC profiler, the options narrowing the
+     * parameters. Other JMH options go through org.openjdk.jmh.Main instead.
+     */
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+        String[] benchmarks = BENCHMARKS;
+        boolean listApi = true;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    int[] taskCounts = SweepRunner.parseInts(value);
+                    options.param("taskCount", toStrings(taskCounts));
+                    int[] listTaskCounts = Arrays.stream(taskCounts).filter(n -> n <= LIST_TASK_LIMIT).toArray();
+                    listApi = listTaskCounts.length > 0;
+                    if (listApi) {
+                        options.param("listTaskCount", toStrings(listTaskCounts));
+                    }
+                    break;
+                case "--vms":
+                    options.param("vmCount", toStrings(SweepRunner.parseInts(value)));
+                    break;
+                case "--dist":
+                    options.param("distribution", Arrays.stream(SweepRunner.parseEnums(value, TaskDistribution.class))
+                            .map(Enum::name).toArray(String[]::new));
+                    break;
+                case "--bench":
+                    benchmarks = value.split(",");
+                    break;
+                case "--iterations":
+                    options.warmupIterations(Integer.parseInt(value)).measurementIterations(Integer.parseInt(value));
+                    break;
+                case "--seconds":
+                    TimeValue time = TimeValue.milliseconds((long) (Double.parseDouble(value) * 1000));
+                    options.warmupTime(time).measurementTime(time);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        boolean included = false;
+        for (String benchmark : benchmarks) {
+            String name = benchmark.trim();
+            if (!Arrays.asList(BENCHMARKS).contains(name)) {
+                throw new IllegalArgumentException("Unknown benchmark " + name
+                        + ", expected one of " + Arrays.toString(BENCHMARKS));
+            }
+            boolean list = name.startsWith("list") || name.endsWith("Min") || name.equals("addToMinVM");
+            if (list && !listApi) {
+                continue;
+            }
+            String owner = list ? ListApi.class.getName().replace('$', '.') : SchedulingBenchmark.class.getName();
+            options.include("^" + owner.replace(".", "\\.") + "\\." + name + "$");
+            included = true;
+        }
+        if (included) {
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static String[] toStrings(int[] values) {
+        return Arrays.stream(values).mapToObj(Integer::toString).toArray(String[]::new);
+    }
+}
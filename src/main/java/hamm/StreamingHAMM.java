@@ -0,0 +1,375 @@
+package hamm;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * HAMM for tasks that arrive over time.
+ *
+ * HAMM(int[], int) looks at every remaining task for each decision. Here only
+ * a bounded window of tasks that arrived but are not assigned yet is looked at
+ * instead. The maxMin or minMin choice is made exactly as in HAMM, but with
+ * the average and the count below it taken over the window, which keeps a
+ * running sum. The picked task goes to the least loaded VM and is reported to
+ * the listener right away.
+ *
+ * In SLIDING mode a decision is made for every arrival once the window is full.
+ * In MICRO_BATCH mode nothing is decided until the window is full, and then the
+ * whole window is scheduled, which is HAMM over each batch. flush() schedules
+ * whatever is still waiting. With a window at least as large as the stream
+ * both modes give the same loads as HAMM(int[], int).
+ *
+ * The window is not the most recent arrivals: in SLIDING mode maxMin keeps
+ * leaving the smallest tasks behind and minMin the largest, so a task can wait
+ * for many later arrivals, up to the end of the stream. The wall time from
+ * offer() to assignment of every task is recorded in waits(), next to the
+ * wall time of every decision in latencies().
+ *
+ * Memory is bounded by the window and the VM count, however long the stream.
+ *
+ * Usage: java hamm.StreamingHAMM [--tasks 1e6] [--vms 6] [--window 64,1024] [--mode SLIDING,MICRO_BATCH]
+ *        [--dist UNIFORM] [--seed 5555]
+ */
+public class StreamingHAMM {
+
+    public enum Mode { SLIDING, MICRO_BATCH }
+
+    /** Receives every assignment as soon as it is decided. */
+    public interface Listener {
+        /**
+         * @param task the position of the task in the stream, starting at 0
+         */
+        void assigned(long task, int size, int vm);
+    }
+
+    // schedules larger than this are not run through offline HAMM for comparison
+    private static final int OFFLINE_LIMIT = 10000000;
+
+    private final int window;
+    private final Mode mode;
+    private final Listener listener;
+    private final VmLoadIndex loads;
+
+    // the window: keys (size << 32) | slot, sorted in keys[low, high) with room on both sides
+    private final long[] keys;
+    private int low;
+    private int high;
+    private long windowSum;
+    private final long[] arrivalOf;   // stream position of the task in each slot
+    private final long[] offeredAt;   // System.nanoTime() when the task in each slot was offered
+    private final int[] freeSlots;
+    private int freeCount;
+
+    private long arrivals;
+    private long assigned;
+    private long maxLoad;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    public StreamingHAMM(int vmCount, int window, Mode mode, Listener listener) {
+        if (vmCount < 1) {
+            throw new IllegalArgumentException("need at least one VM: " + vmCount);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1: " + window);
+        }
+        this.window = window;
+        this.mode = mode;
+        this.listener = listener;
+        loads = new VmLoadIndex(vmCount);
+        keys = new long[2 * window];
+        low = window;
+        high = window;
+        arrivalOf = new long[window];
+        offeredAt = new long[window];
+        freeSlots = new int[window];
+        for (int slot = 0; slot < window; slot++) {
+            freeSlots[slot] = window - 1 - slot;
+        }
+        freeCount = window;
+    }
+
+    /**
+     * Adds the next task of the stream, scheduling tasks from the window if it
+     * is full.
+     */
+    public void offer(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("task size must not be negative: " + size);
+        }
+        int slot = freeSlots[--freeCount];
+        arrivalOf[slot] = arrivals++;
+        offeredAt[slot] = System.nanoTime();
+        insert(((long) size << 32) | slot);
+        windowSum += size;
+
+        if (high - low == window) {
+            if (mode == Mode.SLIDING) {
+                decide();
+            } else {
+                flush();
+            }
+        }
+    }
+
+    /** Schedules every task still waiting in the window. */
+    public void flush() {
+        while (high > low) {
+            decide();
+        }
+    }
+
+    /** Offers every task of sizes, then flushes. */
+    public void schedule(PrimitiveIterator.OfInt sizes) {
+        while (sizes.hasNext()) {
+            offer(sizes.nextInt());
+        }
+        flush();
+    }
+
+    /** Offers every task of sizes, then flushes. */
+    public void schedule(Iterator<Integer> sizes) {
+        while (sizes.hasNext()) {
+            offer(sizes.next());
+        }
+        flush();
+    }
+
+    /**
+     * Subscribes to a publisher of task sizes, requesting one task for every
+     * task taken so no more than the window is ever buffered. The returned
+     * future completes once the publisher completes and the window is
+     * flushed, or exceptionally if the publisher fails.
+     */
+    public CompletableFuture<Void> subscribe(Flow.Publisher<Integer> publisher) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<Integer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(window);
+            }
+
+            @Override
+            public void onNext(Integer size) {
+                try {
+                    offer(size);
+                } catch (RuntimeException e) {
+                    subscription.cancel();
+                    done.completeExceptionally(e);
+                    return;
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                flush();
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    private void decide() {
+        long start = System.nanoTime();
+        int count = high - low;
+        double average = (double) windowSum / count;
+        int lower = countAtMost(average);
+        int higher = count - lower;
+
+        // maxMin takes the largest task, minMin the smallest, both go to the least loaded vm
+        long key = lower >= higher ? keys[--high] : keys[low++];
+        int size = (int) (key >>> 32);
+        int slot = (int) key;
+        windowSum -= size;
+        freeSlots[freeCount++] = slot;
+
+        int vm = loads.leastLoaded();
+        loads.addLoad(vm, size);
+        maxLoad = Math.max(maxLoad, loads.load(vm));
+        assigned++;
+        long end = System.nanoTime();
+        latencies.record(end - start);
+        waits.record(end - offeredAt[slot]);
+
+        if (listener != null) {
+            listener.assigned(arrivalOf[slot], size, vm);
+        }
+    }
+
+    private int countAtMost(double value) {
+        int lo = low;
+        int hi = high;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((keys[mid] >>> 32) <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - low;
+    }
+
+    private void insert(long key) {
+        int lo = low;
+        int hi = high;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // shift whichever side is shorter; the window never fills the whole array
+        if (high == keys.length || (low > 0 && lo - low < high - lo)) {
+            System.arraycopy(keys, low, keys, low - 1, lo - low);
+            low--;
+            keys[lo - 1] = key;
+        } else {
+            System.arraycopy(keys, lo, keys, lo + 1, high - lo);
+            high++;
+            keys[lo] = key;
+        }
+    }
+
+    public int vmCount() {
+        return loads.size();
+    }
+
+    /** Sum of the sizes of the tasks assigned to vm so far. */
+    public long load(int vm) {
+        return loads.load(vm);
+    }
+
+    /** Largest load of any VM, the makespan on identical VMs. */
+    public long maxLoad() {
+        return maxLoad;
+    }
+
+    /** Tasks offered so far. */
+    public long arrivals() {
+        return arrivals;
+    }
+
+    /** Tasks assigned to a VM so far. */
+    public long assigned() {
+        return assigned;
+    }
+
+    /** Tasks offered but not assigned yet. */
+    public int waiting() {
+        return high - low;
+    }
+
+    /** Wall time of every decision so far. */
+    public LatencyHistogram latencies() {
+        return latencies;
+    }
+
+    /** Wall time from offer() to assignment of every task assigned so far. */
+    public LatencyHistogram waits() {
+        return waits;
+    }
+
+    public static void main(String[] args) {
+        int taskCount = 1000000;
+        int vmCount = 6;
+        int[] windows = {64, 1024};
+        Mode[] modes = Mode.values();
+        TaskDistribution distribution = TaskDistribution.UNIFORM;
+        long seed = 5555;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    taskCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--vms":
+                    vmCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--window":
+                    windows = SweepRunner.parseInts(value);
+                    break;
+                case "--mode":
+                    modes = SweepRunner.parseEnums(value, Mode.class);
+                    break;
+                case "--dist":
+                    distribution = TaskDistribution.valueOf(value.trim().toUpperCase());
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long offline = -1;
+        if (taskCount <= OFFLINE_LIMIT) {
+            Schedule schedule = HAMMSimulation.HAMM(distribution.generate(taskCount, seed), vmCount);
+            offline = 0;
+            for (int vm = 0; vm < vmCount; vm++) {
+                offline = Math.max(offline, schedule.load(vm));
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-12s %8s %12s %10s %12s %8s %8s %8s %8s %10s %12s %12s",
+                "Mode", "Window", "Makespan", "vs HAMM", "decisions/s", "p50 ns", "p90 ns", "p99 ns", "p99.9 ns", "max ns",
+                "wait p99 ns", "wait max ns"));
+        for (Mode mode : modes) {
+            for (int window : windows) {
+                StreamingHAMM hamm = new StreamingHAMM(vmCount, window, mode, null);
+                long start = System.nanoTime();
+                hamm.schedule(stream(distribution, taskCount, seed));
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                LatencyHistogram latencies = hamm.latencies();
+                LatencyHistogram waits = hamm.waits();
+                String ratio = offline > 0
+                        ? String.format(Locale.ROOT, "%+.4f%%", 100.0 * (hamm.maxLoad() - offline) / offline)
+                        : "n/a";
+                System.out.println(String.format(Locale.ROOT, "%-12s %8d %12d %10s %12.0f %8d %8d %8d %8d %10d %12d %12d",
+                        mode, window, hamm.maxLoad(), ratio, hamm.assigned() / seconds,
+                        latencies.percentile(50), latencies.percentile(90), latencies.percentile(99),
+                        latencies.percentile(99.9), latencies.max(), waits.percentile(99), waits.max()));
+            }
+        }
+    }
+
+    /**
+     * The same task sizes as distribution.generate(taskCount, seed), drawn one
+     * at a time instead of into an array.
+     */
+    static PrimitiveIterator.OfInt stream(TaskDistribution distribution, long taskCount, long seed) {
+        Random rand = new Random(seed);
+        return new PrimitiveIterator.OfInt() {
+            private long drawn;
+
+            @Override
+            public boolean hasNext() {
+                return drawn < taskCount;
+            }
+
+            @Override
+            public int nextInt() {
+                drawn++;
+                return distribution.next(rand);
+            }
+        };
+    }
+}
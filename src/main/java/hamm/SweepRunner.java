@@ -0,0 +1,306 @@
+package hamm;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a grid of seeds x task counts x VM counts x distributions x algorithms
+ * in one JVM. Cells are scheduled and evaluated in parallel on a fork-join
+ * pool, with makespans from MakespanEvaluator instead of a CloudSim run per
+ * cell.
+ *
+ * Every finished cell is written to the output CSV straight away. When the
+ * grid is done, a summary CSV with the mean and standard deviation over seeds
+ * of every other combination is written next to it.
+ *
+ * With --cache, schedules and their metrics are kept in a ResultCache, so
+ * running a grid again only computes the cells that are new or whose
+ * algorithm code changed.
+ *
+ * Usage: java hamm.SweepRunner [--seeds 1-100] [--tasks 100,1000] [--vms 6,60]
+ *        [--dist UNIFORM,BIMODAL] [--algorithms HAMM,EHAMM] [--threads 8] [--out sweep.csv]
+ *        [--cache dir] [--cache-mb 256]
+ */
+public class SweepRunner {
+
+    // the VMs of the simulations: 100 MIPS, one PE, single PE cloudlets
+    private static final double VM_MIPS = 100;
+    private static final int VM_PES = 1;
+    private static final int CLOUDLET_PES = 1;
+
+    private static final ThreadLocal<MakespanEvaluator> evaluators = ThreadLocal.withInitial(MakespanEvaluator::new);
+
+    /** One cell of the grid. */
+    static class Cell {
+        final int seed;
+        final int taskCount;
+        final int vmCount;
+        final TaskDistribution distribution;
+        final SchedulingAlgorithm algorithm;
+
+        Cell(int seed, int taskCount, int vmCount, TaskDistribution distribution, SchedulingAlgorithm algorithm) {
+            this.seed = seed;
+            this.taskCount = taskCount;
+            this.vmCount = vmCount;
+            this.distribution = distribution;
+            this.algorithm = algorithm;
+        }
+
+        /** The cell without its seed, which is what the summary groups by. */
+        String configuration() {
+            return taskCount + "," + vmCount + "," + distribution + "," + algorithm;
+        }
+    }
+
+    /** What one cell measured. */
+    static class Result {
+        final Cell cell;
+        final double makespan;
+        final double loadVariance;
+        final double schedulingMillis;
+
+        Result(Cell cell, double makespan, double loadVariance, double schedulingMillis) {
+            this.cell = cell;
+            this.makespan = makespan;
+            this.loadVariance = loadVariance;
+            this.schedulingMillis = schedulingMillis;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%d,%s,%.4f,%.4f,%.4f",
+                    cell.seed, cell.configuration(), makespan, loadVariance, schedulingMillis);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] seeds = {5555};
+        int[] taskCounts = {100};
+        int[] vmCounts = {6};
+        TaskDistribution[] distributions = {TaskDistribution.UNIFORM};
+        SchedulingAlgorithm[] algorithms = {SchedulingAlgorithm.HAMM, SchedulingAlgorithm.EHAMM};
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path out = Paths.get("sweep.csv");
+        Path cacheDir = null;
+        long cacheMegabytes = 256;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seeds":
+                    seeds = parseInts(value);
+                    break;
+                case "--tasks":
+                    taskCounts = parseInts(value);
+                    break;
+                case "--vms":
+                    vmCounts = parseInts(value);
+                    break;
+                case "--dist":
+                    distributions = parseEnums(value, TaskDistribution.class);
+                    break;
+                case "--algorithms":
+                    algorithms = parseEnums(value, SchedulingAlgorithm.class);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                case "--cache":
+                    cacheDir = Paths.get(value);
+                    break;
+                case "--cache-mb":
+                    cacheMegabytes = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Cell> cells = expand(seeds, taskCounts, vmCounts, distributions, algorithms);
+        System.out.println("Running " + cells.size() + " cells on " + threads + " threads");
+        long start = System.nanoTime();
+        ResultCache cache = cacheDir == null ? null : new ResultCache(cacheDir, cacheMegabytes << 20);
+        List<Result> results = run(cells, threads, out, cache);
+        Path summary = summaryPath(out);
+        writeSummary(results, summary);
+        System.out.println(String.format(Locale.ROOT, "Finished in %.1f s, results in %s, summary in %s",
+                (System.nanoTime() - start) / 1e9, out, summary));
+        if (cache != null) {
+            System.out.println("Cache: " + (cache.memoryHits() + cache.diskHits()) + " hits ("
+                    + cache.diskHits() + " from disk), " + cache.misses() + " computed");
+        }
+    }
+
+    static List<Cell> expand(int[] seeds, int[] taskCounts, int[] vmCounts,
+                             TaskDistribution[] distributions, SchedulingAlgorithm[] algorithms) {
+        List<Cell> cells = new ArrayList<>();
+        for (int taskCount : taskCounts) {
+            for (int vmCount : vmCounts) {
+                for (TaskDistribution distribution : distributions) {
+                    for (SchedulingAlgorithm algorithm : algorithms) {
+                        for (int seed : seeds) {
+                            cells.add(new Cell(seed, taskCount, vmCount, distribution, algorithm));
+                        }
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Runs every cell on a pool of the given size, appending each result to out
+     * as soon as it is known. Returns the results in cell order.
+     */
+    static List<Result> run(List<Cell> cells, int threads, Path out) throws Exception {
+        return run(cells, threads, out, null);
+    }
+
+    /**
+     * As run, but takes cells found in cache from there and adds the others
+     * to it. cache may be null.
+     */
+    static List<Result> run(List<Cell> cells, int threads, Path out, ResultCache cache) throws Exception {
+        Result[] results = new Result[cells.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("seed,tasks,vms,distribution,algorithm,makespan,load_variance,scheduling_ms");
+            writer.newLine();
+            pool.submit(() -> IntStream.range(0, cells.size()).parallel().forEach(i -> {
+                results[i] = evaluate(cells.get(i), cache);
+                synchronized (writer) {
+                    try {
+                        writer.write(results[i].toCsv());
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(results);
+    }
+
+    static Result evaluate(Cell cell, ResultCache cache) {
+        if (cache == null) {
+            return evaluate(cell);
+        }
+        String key = ResultCache.key(cell.seed, cell.taskCount, cell.vmCount, cell.distribution, cell.algorithm);
+        try {
+            ResultCache.Entry entry = cache.get(key);
+            if (entry == null) {
+                int[] tasks = cell.distribution.generate(cell.taskCount, cell.seed);
+                long start = System.nanoTime();
+                Schedule schedule = cell.algorithm.schedule(tasks, cell.vmCount);
+                Result result = measure(cell, schedule, (System.nanoTime() - start) / 1e6);
+                entry = new ResultCache.Entry(schedule, result.makespan, result.loadVariance, result.schedulingMillis);
+                cache.put(key, entry);
+            }
+            return new Result(cell, entry.makespan(), entry.loadVariance(), entry.schedulingMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Result evaluate(Cell cell) {
+        int[] tasks = cell.distribution.generate(cell.taskCount, cell.seed);
+
+        long start = System.nanoTime();
+        Schedule schedule = cell.algorithm.schedule(tasks, cell.vmCount);
+        return measure(cell, schedule, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static Result measure(Cell cell, Schedule schedule, double schedulingMillis) {
+        double[] mips = new double[cell.vmCount];
+        int[] pes = new int[cell.vmCount];
+        Arrays.fill(mips, VM_MIPS);
+        Arrays.fill(pes, VM_PES);
+        double makespan = evaluators.get().evaluate(schedule, mips, pes, CLOUDLET_PES).makespan();
+
+        return new Result(cell, makespan, RunMetrics.loadVariance(schedule), schedulingMillis);
+    }
+
+    static void writeSummary(List<Result> results, Path summary) throws IOException {
+        // configuration -> {count, sum and sum of squares of makespan, variance and time}
+        Map<String, double[]> totals = new TreeMap<>();
+        for (Result result : results) {
+            double[] total = totals.computeIfAbsent(result.cell.configuration(), k -> new double[7]);
+            total[0]++;
+            double[] values = {result.makespan, result.loadVariance, result.schedulingMillis};
+            for (int i = 0; i < values.length; i++) {
+                total[1 + 2 * i] += values[i];
+                total[2 + 2 * i] += values[i] * values[i];
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(summary, StandardCharsets.UTF_8)) {
+            writer.write("tasks,vms,distribution,algorithm,runs,makespan_mean,makespan_sd,"
+                    + "load_variance_mean,load_variance_sd,scheduling_ms_mean,scheduling_ms_sd");
+            writer.newLine();
+            for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+                double[] total = entry.getValue();
+                double n = total[0];
+                StringBuilder row = new StringBuilder(entry.getKey()).append(',').append((long) n);
+                for (int i = 0; i < 3; i++) {
+                    double mean = total[1 + 2 * i] / n;
+                    double sd = n > 1 ? Math.sqrt(Math.max(0, (total[2 + 2 * i] - n * mean * mean) / (n - 1))) : 0;
+                    row.append(String.format(Locale.ROOT, ",%.4f,%.4f", mean, sd));
+                }
+                writer.write(row.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static Path summaryPath(Path out) {
+        String name = out.getFileName().toString();
+        String base = name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        return out.resolveSibling(base + "-summary.csv");
+    }
+
+    /** Parses "1,5,10" and ranges like "1-100", numbers may use e notation. */
+    static int[] parseInts(String value) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            part = part.trim();
+            int dash = part.indexOf('-', 1);
+            if (dash > 0) {
+                int from = (int) Double.parseDouble(part.substring(0, dash));
+                int to = (int) Double.parseDouble(part.substring(dash + 1));
+                for (int v = from; v <= to; v++) {
+                    values.add(v);
+                }
+            } else {
+                values.add((int) Double.parseDouble(part));
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static <E extends Enum<E>> E[] parseEnums(String value, Class<E> type) {
+        String[] names = value.split(",");
+        @SuppressWarnings("unchecked")
+        E[] values = (E[]) java.lang.reflect.Array.newInstance(type, names.length);
+        for (int i = 0; i < names.length; i++) {
+            values[i] = Enum.valueOf(type, names[i].trim().toUpperCase(Locale.ROOT));
+        }
+        return values;
+    }
+}
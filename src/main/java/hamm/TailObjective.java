@@ -0,0 +1,395 @@
+package hamm;
+
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HAMM and reschedule with an objective that weighs task completion times
+ * against the load of each VM.
+ *
+ * Plain HAMM puts every task on the least loaded VM and reschedule only looks
+ * at loads, so a small task can end up on a VM full of large ones and finish
+ * late even when the makespan is good. With tail weight w, every placement
+ * and every rescheduling move is scored as (1 - w) times what HAMM and
+ * reschedule look at plus w times the change in flowtime (the sum of the
+ * completion times of all tasks) it causes, all in MI. w = 0 gives exactly
+ * HAMM and reschedule. A larger w keeps short tasks away from VMs where many
+ * tasks run before or alongside them, which lowers the mean completion time
+ * at some cost in makespan.
+ *
+ * The objective is the flowtime, not a percentile. Whether p95 and p99 move
+ * with it depends on the workload, and main() prints them per weight to check:
+ * with heavy tailed sizes on tens of VMs they drop along with the mean, with
+ * uniform sizes or a handful of VMs they barely change.
+ *
+ * Completion times follow the VMs' cloudlet scheduler. TIME_SHARED VMs share
+ * their MIPS between all running cloudlets, so a task of length s delays every
+ * longer task by s and every shorter task by that task's own length.
+ * SPACE_SHARED VMs run cloudlets one after another in submission order, and
+ * HAMMBroker submits them shortest first. A task then only waits for the
+ * shorter tasks on its VM, which is the order that minimises flowtime.
+ *
+ * HAMM's flowtime is tracked incrementally. HAMM takes tasks from both ends of
+ * the sorted pool, so every task already on a VM is either no larger than the
+ * next one (taken by minMin) or no smaller (taken by maxMin). The sum of the
+ * former and the count of the latter give the flowtime change of a placement
+ * in O(1). Which VM scores lowest depends on the task's size, since the score
+ * is intercept + size * slope, so each task scans all m VMs. HAMM under this
+ * objective costs O(n * m) against plain HAMM's O(n log m), which is slow for
+ * schedules with many VMs.
+ */
+public class TailObjective {
+
+    private final double tailWeight;
+    private final Topology.Sharing sharing;
+    // how many times a task delays the tasks sharing the VM with it, 2 when shared, 1 when queued
+    private final int sharingFactor;
+
+    /**
+     * @param tailWeight between 0 (makespan only) and 1 (flowtime only)
+     * @param sharing    the cloudlet scheduler of the VMs
+     */
+    public TailObjective(double tailWeight, Topology.Sharing sharing) {
+        if (!(tailWeight >= 0 && tailWeight <= 1)) {
+            throw new IllegalArgumentException("tail weight must be between 0 and 1: " + tailWeight);
+        }
+        this.tailWeight = tailWeight;
+        this.sharing = sharing;
+        this.sharingFactor = sharing == Topology.Sharing.TIME_SHARED ? 2 : 1;
+    }
+
+    /** SPACE_SHARED if every VM queues its cloudlets, TIME_SHARED otherwise. */
+    public static Topology.Sharing sharingOf(List<? extends Vm> vmList) {
+        for (Vm vm : vmList) {
+            if (!(vm.getCloudletScheduler() instanceof CloudletSchedulerSpaceShared)) {
+                return Topology.Sharing.TIME_SHARED;
+            }
+        }
+        return vmList.isEmpty() ? Topology.Sharing.TIME_SHARED : Topology.Sharing.SPACE_SHARED;
+    }
+
+    public double tailWeight() {
+        return tailWeight;
+    }
+
+    public Topology.Sharing sharing() {
+        return sharing;
+    }
+
+    /**
+     * Schedules taskSizes with algorithm under this objective, timing each step
+     * as a phase of metrics the way SchedulingAlgorithm does. The objective
+     * assumes identical VMs, so the speed aware algorithms are rejected.
+     */
+    public Schedule schedule(int[] taskSizes, int vmCount, SchedulingAlgorithm algorithm, RunMetrics metrics) {
+        if (algorithm.isSpeedAware()) {
+            throw new IllegalArgumentException("TailObjective assumes identical VMs, it cannot run " + algorithm);
+        }
+        metrics.begin("HAMM");
+        Schedule schedule = HAMM(taskSizes, vmCount);
+        metrics.end("HAMM");
+        if (algorithm == SchedulingAlgorithm.EHAMM) {
+            metrics.begin("reschedule");
+            reschedule(schedule);
+            metrics.end("reschedule");
+        }
+        return schedule;
+    }
+
+    /**
+     * HAMM's task order, each task placed on the VM where it scores lowest,
+     * lowest index on ties.
+     */
+    public Schedule HAMM(int[] taskSizes, int vmCount) {
+        if (tailWeight == 0) {
+            return HAMMSimulation.HAMM(taskSizes, vmCount);
+        }
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        Schedule vms = new Schedule(vmCount, taskSizes.length);
+        long[] loads = new long[vmCount];
+        long[] smallerSums = new long[vmCount]; // total size of the tasks taken by minMin
+        int[] largerCounts = new int[vmCount];  // number of tasks taken by maxMin
+        // a VM's score for a task of size s is intercept + s * slope
+        double[] intercepts = new double[vmCount];
+        double[] slopes = new double[vmCount];
+        double loadWeight = 1 - tailWeight;
+        Arrays.fill(slopes, loadWeight + tailWeight);
+        TaskPool pool = new TaskPool(taskSizes);
+
+        while (!pool.isEmpty()) {
+            double average = pool.average();
+            int lower = pool.countAtMost(average);
+            int higher = pool.size() - lower;
+            boolean maxMin = lower >= higher;
+            int value = maxMin ? pool.pollMax() : pool.pollMin();
+
+            // score: loadWeight * (load + s) + tailWeight * flowtime change, where the
+            // change is sharingFactor * smallerSum + s * (sharingFactor * largerCount + 1)
+            int best = 0;
+            double bestScore = Double.POSITIVE_INFINITY;
+            for (int vm = 0; vm < vmCount; vm++) {
+                double score = intercepts[vm] + value * slopes[vm];
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = vm;
+                }
+            }
+            loads[best] += value;
+            if (maxMin) {
+                largerCounts[best]++;
+            } else {
+                smallerSums[best] += value;
+            }
+            intercepts[best] = loadWeight * loads[best] + tailWeight * sharingFactor * smallerSums[best];
+            slopes[best] = loadWeight + tailWeight * (sharingFactor * largerCounts[best] + 1);
+            vms.assign(value, best);
+        }
+        event.record("HAMM", vmCount, taskSizes.length, 0, 0, (long) taskSizes.length * vmCount);
+        return vms;
+    }
+
+    /**
+     * reschedule(Schedule) with the same machines and candidate moves, but a
+     * move is kept when it lowers the weighted score: (1 - w) times how much it
+     * narrows the load gap, against w times the flowtime it adds. Rebalances
+     * vms in place and returns it.
+     */
+    public Schedule reschedule(Schedule vms) {
+        if (tailWeight == 0) {
+            return EHAMMSimulation.reschedule(vms);
+        }
+        SchedulerEvents.Batch event = new SchedulerEvents.Batch();
+        event.begin();
+        long accepted = 0;
+        long rejected = 0;
+        int vmCount = vms.vmCount();
+        boolean[] highLoad = EHAMMSimulation.highAndLowSplit(vms);
+        TaskHeaps machineTasks = new TaskHeaps(vms);
+        SortedSizes sizes = new SortedSizes(vms);
+
+        // the same machine order as reschedule(Schedule)
+        VmLoadIndex highLoadIndex = VmLoadIndex.empty(vmCount);
+        VmLoadIndex lowLoadIndex = VmLoadIndex.empty(vmCount);
+        int[] lowLoad = new int[vmCount];
+        int lowLoadCount = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            if (highLoad[vm]) {
+                highLoadIndex.insert(vm, -vms.taskCount(vm));
+            } else {
+                lowLoad[lowLoadCount] = vm;
+                lowLoadIndex.insert(lowLoadCount++, vms.taskCount(vm));
+            }
+        }
+
+        while (!highLoadIndex.isEmpty()) {
+            int highLoadMachine = highLoadIndex.leastLoaded();
+            boolean move = false;
+            int smallestTaskIndex = -1;
+            int smallestLoadSlot = lowLoadIndex.leastLoaded();
+            int smallestLoadMachine = lowLoad[smallestLoadSlot];
+
+            if (vms.taskCount(highLoadMachine) > 0) {
+                smallestTaskIndex = machineTasks.peekMin(highLoadMachine);
+                int smallestTask = vms.taskSize(smallestTaskIndex);
+
+                long smallestLoadMachineSize = vms.load(smallestLoadMachine);
+                long highLoadMachineSize = vms.load(highLoadMachine);
+                long difference = highLoadMachineSize - smallestLoadMachineSize;
+                long differenceAfterRescheduling = (highLoadMachineSize - smallestTask) - (smallestLoadMachineSize + smallestTask);
+
+                // the task is the smallest on its machine, so it delays every other task there
+                double removed = (double) smallestTask * (sharingFactor * (vms.taskCount(highLoadMachine) - 1) + 1);
+                double added = sharingFactor * sizes.sumAtMost(smallestLoadMachine, smallestTask)
+                        + (double) smallestTask * (sharingFactor * sizes.countAbove(smallestLoadMachine, smallestTask) + 1);
+                double gain = (1 - tailWeight) * (Math.abs(difference) - Math.abs(differenceAfterRescheduling))
+                        - tailWeight * (added - removed);
+                move = gain > 0;
+                if (!move) {
+                    rejected++;
+                }
+            }
+
+            if (move) {
+                accepted++;
+                machineTasks.pollMin(highLoadMachine);
+                machineTasks.add(smallestLoadMachine, smallestTaskIndex);
+                sizes.removeSmallest(highLoadMachine);
+                sizes.add(smallestLoadMachine, vms.taskSize(smallestTaskIndex));
+                vms.move(smallestTaskIndex, smallestLoadMachine);
+                highLoadIndex.addLoad(highLoadMachine, 1);
+                lowLoadIndex.addLoad(smallestLoadSlot, 1);
+            } else {
+                highLoadIndex.remove(highLoadMachine);
+                lowLoad[lowLoadCount] = highLoadMachine;
+                lowLoadIndex.insert(lowLoadCount++, vms.taskCount(highLoadMachine));
+            }
+        }
+        event.record("reschedule", vmCount, 0, accepted, rejected,
+                highLoadIndex.comparisons() + lowLoadIndex.comparisons());
+        return vms;
+    }
+
+    /**
+     * The task sizes of each VM in ascending order. reschedule only takes the
+     * smallest task off a high load machine and only adds to low load ones, so
+     * removal moves a start offset and insertion shifts the larger sizes up.
+     */
+    private static class SortedSizes {
+        private final int[][] sizes;
+        private final int[] from;
+        private final int[] to;
+
+        SortedSizes(Schedule vms) {
+            int vmCount = vms.vmCount();
+            int[] offsets = new int[vmCount + 1];
+            int[] tasks = vms.tasksByVm(offsets);
+            sizes = new int[vmCount][];
+            from = new int[vmCount];
+            to = new int[vmCount];
+            for (int vm = 0; vm < vmCount; vm++) {
+                int count = offsets[vm + 1] - offsets[vm];
+                sizes[vm] = new int[Math.max(count, 4)];
+                for (int i = 0; i < count; i++) {
+                    sizes[vm][i] = vms.taskSize(tasks[offsets[vm] + i]);
+                }
+                Arrays.sort(sizes[vm], 0, count);
+                to[vm] = count;
+            }
+        }
+
+        /** Where the first size above value is, or would be. */
+        private int upperBound(int vm, int value) {
+            int low = from[vm];
+            int high = to[vm];
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sizes[vm][mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        long sumAtMost(int vm, int value) {
+            long sum = 0;
+            for (int i = from[vm]; i < to[vm] && sizes[vm][i] <= value; i++) {
+                sum += sizes[vm][i];
+            }
+            return sum;
+        }
+
+        int countAbove(int vm, int value) {
+            return to[vm] - upperBound(vm, value);
+        }
+
+        void removeSmallest(int vm) {
+            from[vm]++;
+        }
+
+        void add(int vm, int value) {
+            int count = to[vm] - from[vm];
+            if (to[vm] == sizes[vm].length) {
+                int[] grown = new int[Math.max(4, count * 2)];
+                System.arraycopy(sizes[vm], from[vm], grown, 0, count);
+                sizes[vm] = grown;
+                from[vm] = 0;
+                to[vm] = count;
+            }
+            int at = upperBound(vm, value);
+            System.arraycopy(sizes[vm], at, sizes[vm], at + 1, to[vm] - at);
+            sizes[vm][at] = value;
+            to[vm]++;
+        }
+    }
+
+    /**
+     * Compares makespan, load variance and completion time percentiles over
+     * tail weights, for both cloudlet schedulers.
+     *
+     * Usage: java hamm.TailObjective [--tasks 10000] [--vms 6,60] [--dist UNIFORM,HEAVY_TAILED]
+     *        [--weights 0,0.25,0.5,0.75,1] [--sharing TIME_SHARED,SPACE_SHARED]
+     *        [--algorithms HAMM,EHAMM] [--seed 5555]
+     */
+    public static void main(String[] args) {
+        int[] taskCounts = {10000};
+        int[] vmCounts = {6, 60};
+        TaskDistribution[] distributions = {TaskDistribution.UNIFORM, TaskDistribution.HEAVY_TAILED};
+        double[] weights = {0, 0.25, 0.5, 0.75, 1};
+        Topology.Sharing[] sharings = Topology.Sharing.values();
+        SchedulingAlgorithm[] algorithms = {SchedulingAlgorithm.HAMM, SchedulingAlgorithm.EHAMM};
+        long seed = 5555;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--tasks":
+                    taskCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--vms":
+                    vmCounts = SweepRunner.parseInts(value);
+                    break;
+                case "--dist":
+                    distributions = SweepRunner.parseEnums(value, TaskDistribution.class);
+                    break;
+                case "--weights":
+                    weights = Arrays.stream(value.split(",")).mapToDouble(w -> Double.parseDouble(w.trim())).toArray();
+                    break;
+                case "--sharing":
+                    sharings = SweepRunner.parseEnums(value, Topology.Sharing.class);
+                    break;
+                case "--algorithms":
+                    algorithms = SweepRunner.parseEnums(value, SchedulingAlgorithm.class);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        MakespanEvaluator evaluator = new MakespanEvaluator();
+        System.out.println("tasks,vms,distribution,sharing,algorithm,tail_weight,makespan,load_variance,"
+                + "mean_completion,p50,p95,p99,scheduling_ms");
+        for (int taskCount : taskCounts) {
+            for (int vmCount : vmCounts) {
+                // the VMs of the simulations: 100 MIPS, one PE, single PE cloudlets
+                double[] mips = new double[vmCount];
+                int[] pes = new int[vmCount];
+                boolean[] spaceShared = new boolean[vmCount];
+                Arrays.fill(mips, 100);
+                Arrays.fill(pes, 1);
+                for (TaskDistribution distribution : distributions) {
+                    int[] tasks = distribution.generate(taskCount, seed);
+                    for (Topology.Sharing sharing : sharings) {
+                        Arrays.fill(spaceShared, sharing == Topology.Sharing.SPACE_SHARED);
+                        for (SchedulingAlgorithm algorithm : algorithms) {
+                            for (double weight : weights) {
+                                TailObjective objective = new TailObjective(weight, sharing);
+                                long start = System.nanoTime();
+                                Schedule schedule = objective.schedule(tasks, vmCount, algorithm, RunMetrics.disabled());
+                                double millis = (System.nanoTime() - start) / 1e6;
+
+                                RunMetrics metrics = new RunMetrics()
+                                        .record(schedule, evaluator.evaluate(schedule, mips, pes, 1, spaceShared));
+                                System.out.println(String.format(Locale.ROOT,
+                                        "%d,%d,%s,%s,%s,%.2f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.3f",
+                                        taskCount, vmCount, distribution, sharing, algorithm, weight,
+                                        metrics.makespan(), metrics.loadVariance(),
+                                        metrics.meanFlowtime(), metrics.completionPercentile(50),
+                                        metrics.completionPercentile(95), metrics.completionPercentile(99), millis));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
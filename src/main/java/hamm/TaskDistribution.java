@@ -0,0 +1,51 @@
+package hamm;
+
+import java.util.Random;
+
+/**
+ * Task size distributions used by the simulations and benchmarks. Every
+ * distribution draws sizes from the same 0 to 100000 range as the simulations.
+ */
+public enum TaskDistribution {
+
+    /** rand.nextInt(100000), exactly what the simulations generate with Random(5555). */
+    UNIFORM {
+        @Override
+        int next(Random rand) {
+            return rand.nextInt(MAX_TASK_SIZE);
+        }
+    },
+
+    /** Pareto distributed sizes: mostly small tasks with a few very large ones. */
+    HEAVY_TAILED {
+        @Override
+        int next(Random rand) {
+            double pareto = 100 / Math.pow(1 - rand.nextDouble(), 1 / 1.2);
+            return (int) Math.min(pareto, MAX_TASK_SIZE - 1);
+        }
+    },
+
+    /** 80% small tasks around 5000, 20% large tasks around 90000. */
+    BIMODAL {
+        @Override
+        int next(Random rand) {
+            double size = rand.nextDouble() < 0.8
+                    ? 5000 + rand.nextGaussian() * 2000
+                    : 90000 + rand.nextGaussian() * 5000;
+            return (int) Math.max(0, Math.min(size, MAX_TASK_SIZE - 1));
+        }
+    };
+
+    public static final int MAX_TASK_SIZE = 100000;
+
+    abstract int next(Random rand);
+
+    public int[] generate(int numTasks, long seed) {
+        Random rand = new Random(seed);
+        int[] tasks = new int[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            tasks[i] = next(rand);
+        }
+        return tasks;
+    }
+}
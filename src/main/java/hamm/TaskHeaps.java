@@ -0,0 +1,94 @@
+package hamm;
+
+import java.util.Arrays;
+
+/**
+ * The tasks of every VM in a schedule, each VM's tasks kept in a binary min-heap
+ * of task indices ordered by task size. The smallest task on a VM is found in
+ * O(1) and moving a task between VMs costs O(log n).
+ *
+ * The heaps only mirror the schedule; callers move the task in the schedule
+ * themselves.
+ */
+public class TaskHeaps {
+
+    private final Schedule schedule;
+    private final int[][] heaps;
+    private final int[] sizes;
+
+    public TaskHeaps(Schedule schedule) {
+        this.schedule = schedule;
+        int vmCount = schedule.vmCount();
+        int[] offsets = new int[vmCount + 1];
+        int[] grouped = schedule.tasksByVm(offsets);
+        heaps = new int[vmCount][];
+        sizes = new int[vmCount];
+        for (int vm = 0; vm < vmCount; vm++) {
+            heaps[vm] = Arrays.copyOfRange(grouped, offsets[vm], offsets[vm + 1]);
+            sizes[vm] = heaps[vm].length;
+            for (int i = sizes[vm] / 2 - 1; i >= 0; i--) {
+                siftDown(heaps[vm], sizes[vm], i);
+            }
+        }
+    }
+
+    public int size(int vm) {
+        return sizes[vm];
+    }
+
+    /**
+     * Index of the smallest task on vm, which must have at least one task.
+     */
+    public int peekMin(int vm) {
+        return heaps[vm][0];
+    }
+
+    public int pollMin(int vm) {
+        int[] heap = heaps[vm];
+        int task = heap[0];
+        int last = --sizes[vm];
+        heap[0] = heap[last];
+        if (last > 0) {
+            siftDown(heap, last, 0);
+        }
+        return task;
+    }
+
+    public void add(int vm, int task) {
+        int[] heap = heaps[vm];
+        if (sizes[vm] == heap.length) {
+            heap = heaps[vm] = Arrays.copyOf(heap, heap.length * 2 + 1);
+        }
+        int i = sizes[vm]++;
+        int size = schedule.taskSize(task);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (schedule.taskSize(heap[parent]) <= size) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = task;
+    }
+
+    private void siftDown(int[] heap, int size, int i) {
+        int task = heap[i];
+        int taskSize = schedule.taskSize(task);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && schedule.taskSize(heap[child + 1]) < schedule.taskSize(heap[child])) {
+                child++;
+            }
+            if (schedule.taskSize(heap[child]) >= taskSize) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = task;
+    }
+}
@@ -0,0 +1,79 @@
+package hamm;
+
+import java.util.Arrays;
+
+/**
+ * The tasks HAMM still has to schedule.
+ *
+ * The task sizes are sorted once into a primitive array. HAMM only ever takes
+ * the largest or the smallest remaining task, so the remaining tasks are always
+ * the contiguous range [low, high) of that array. Taking the max or min is O(1),
+ * counting tasks below the average is a binary search, and the average itself
+ * comes from a running sum instead of a pass over every task.
+ */
+public class TaskPool {
+
+    private final int[] sorted;
+    private int low;
+    private int high;
+    private long sum;
+
+    public TaskPool(int[] taskSizes) {
+        sorted = taskSizes.clone();
+        Arrays.sort(sorted);
+        low = 0;
+        high = sorted.length;
+        for (int size : sorted) {
+            sum += size;
+        }
+    }
+
+    public int size() {
+        return high - low;
+    }
+
+    public boolean isEmpty() {
+        return high == low;
+    }
+
+    /**
+     * Average of the remaining tasks, computed the same way as
+     * IntStream.average() so HAMM's comparisons are unchanged.
+     */
+    public double average() {
+        if (isEmpty()) {
+            return 0.0;
+        }
+        return (double) sum / size();
+    }
+
+    /**
+     * Number of remaining tasks whose size is less than or equal to value.
+     */
+    public int countAtMost(double value) {
+        // first index in [low, high) holding a task larger than value
+        int lo = low;
+        int hi = high;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - low;
+    }
+
+    public int pollMax() {
+        int value = sorted[--high];
+        sum -= value;
+        return value;
+    }
+
+    public int pollMin() {
+        int value = sorted[low++];
+        sum -= value;
+        return value;
+    }
+}
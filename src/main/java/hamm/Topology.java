@@ -0,0 +1,323 @@
+package hamm;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A datacenter and its VMs described declaratively instead of in code.
+ *
+ * A spec has one line per host type, VM type or datacenter setting. Each line
+ * is a kind, a name and key=value pairs; '#' starts a comment:
+ * <pre>
+ *   datacenter arch=x86 os=Linux vmm=Xen timeZone=10 cost=3
+ *   host small count=2 pes=1 mips=1000 ram=2048 bw=10000 storage=1000000 vmScheduler=TIME_SHARED
+ *   vm standard count=6 pes=1 mips=100 ram=500 bw=1000 size=10000 cloudletScheduler=TIME_SHARED
+ * </pre>
+ * Keys that are left out default to what createDatacenter and the simulations
+ * hard-code, so the example above is the simulations' own topology.
+ *
+ * Hosts and VMs are instantiated from their type in one presized pass. CloudSim
+ * provisioners and schedulers keep per host state, so only the type is
+ * shared and every host still gets its own. Host ids run from 0 and VM ids
+ * from 1 in spec order.
+ *
+ * Usage: java hamm.Topology spec.txt
+ */
+public class Topology {
+
+    /** How a host or VM shares its PEs. */
+    public enum Sharing { TIME_SHARED, SPACE_SHARED }
+
+    /** One kind of host and how many of them there are. */
+    public static class HostType {
+        final String name;
+        final int count;
+        final int pes;
+        final int mips;
+        final int ram;
+        final long bw;
+        final long storage;
+        final Sharing vmScheduler;
+
+        HostType(String name, Map<String, String> values) {
+            this.name = name;
+            count = intValue(values, "count", 1);
+            pes = intValue(values, "pes", 1);
+            mips = intValue(values, "mips", 1000);
+            ram = intValue(values, "ram", 2048);
+            bw = longValue(values, "bw", 10000);
+            storage = longValue(values, "storage", 1000000);
+            vmScheduler = Sharing.valueOf(values.getOrDefault("vmScheduler", "TIME_SHARED").toUpperCase(Locale.ROOT));
+            checkUsed(values, "host " + name, "count", "pes", "mips", "ram", "bw", "storage", "vmScheduler");
+        }
+
+        Host create(int id) {
+            List<Pe> peList = new ArrayList<>(pes);
+            for (int i = 0; i < pes; i++) {
+                peList.add(new Pe(i, new PeProvisionerSimple(mips)));
+            }
+            VmScheduler scheduler = vmScheduler == Sharing.TIME_SHARED
+                    ? new VmSchedulerTimeShared(peList)
+                    : new VmSchedulerSpaceShared(peList);
+            return new Host(id, new RamProvisionerSimple(ram), new BwProvisionerSimple(bw), storage, peList, scheduler);
+        }
+    }
+
+    /** One kind of VM and how many of them there are. */
+    public static class VmType {
+        final String name;
+        final int count;
+        final int pes;
+        final double mips;
+        final int ram;
+        final long bw;
+        final long size;
+        final String vmm;
+        final Sharing cloudletScheduler;
+
+        VmType(String name, Map<String, String> values) {
+            this.name = name;
+            count = intValue(values, "count", 1);
+            pes = intValue(values, "pes", 1);
+            mips = Double.parseDouble(values.getOrDefault("mips", "100"));
+            ram = intValue(values, "ram", 500);
+            bw = longValue(values, "bw", 1000);
+            size = longValue(values, "size", 10000);
+            vmm = values.getOrDefault("vmm", "Xen");
+            cloudletScheduler = Sharing.valueOf(values.getOrDefault("cloudletScheduler", "TIME_SHARED").toUpperCase(Locale.ROOT));
+            checkUsed(values, "vm " + name, "count", "pes", "mips", "ram", "bw", "size", "vmm", "cloudletScheduler");
+        }
+
+        Vm create(int id, int brokerId) {
+            CloudletScheduler scheduler = cloudletScheduler == Sharing.TIME_SHARED
+                    ? new CloudletSchedulerTimeShared()
+                    : new CloudletSchedulerSpaceShared();
+            return new Vm(id, brokerId, mips, pes, ram, bw, size, vmm, scheduler);
+        }
+
+        /** Whether a VM of this type fits on an empty host of the given type. */
+        boolean fits(HostType host) {
+            return pes <= host.pes && mips <= host.mips && ram <= host.ram && bw <= host.bw && size <= host.storage;
+        }
+    }
+
+    private final List<HostType> hostTypes;
+    private final List<VmType> vmTypes;
+    private final Map<String, String> datacenter;
+
+    public Topology(List<HostType> hostTypes, List<VmType> vmTypes, Map<String, String> datacenter) {
+        int hostCount = 0;
+        for (HostType host : hostTypes) {
+            hostCount += host.count;
+        }
+        if (hostCount == 0) {
+            throw new IllegalArgumentException("a topology needs at least one host");
+        }
+        for (VmType vm : vmTypes) {
+            boolean fits = false;
+            for (HostType host : hostTypes) {
+                // a host type with count=0 puts no host in the datacenter to fit on
+                fits |= host.count > 0 && vm.fits(host);
+            }
+            if (!fits) {
+                throw new IllegalArgumentException("VM type " + vm.name + " fits on no host type");
+            }
+        }
+        this.hostTypes = hostTypes;
+        this.vmTypes = vmTypes;
+        this.datacenter = datacenter;
+        checkUsed(datacenter, "datacenter", "arch", "os", "vmm", "timeZone", "cost", "costPerMem", "costPerStorage",
+                "costPerBw", "schedulingInterval");
+    }
+
+    public static Topology load(Path path) throws IOException {
+        return parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    public static Topology parse(List<String> lines) {
+        List<HostType> hostTypes = new ArrayList<>();
+        List<VmType> vmTypes = new ArrayList<>();
+        Map<String, String> datacenter = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            String kind = tokens[0];
+            int first = kind.equals("datacenter") ? 1 : 2;
+            if (tokens.length < first) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " has no name: " + line);
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int t = first; t < tokens.length; t++) {
+                int equals = tokens[t].indexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("Line " + (i + 1) + ": expected key=value, got " + tokens[t]);
+                }
+                values.put(tokens[t].substring(0, equals), tokens[t].substring(equals + 1));
+            }
+            switch (kind) {
+                case "host":
+                    hostTypes.add(new HostType(tokens[1], values));
+                    break;
+                case "vm":
+                    vmTypes.add(new VmType(tokens[1], values));
+                    break;
+                case "datacenter":
+                    datacenter.putAll(values);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Line " + (i + 1) + ": unknown kind " + kind);
+            }
+        }
+        return new Topology(hostTypes, vmTypes, datacenter);
+    }
+
+    public int hostCount() {
+        int count = 0;
+        for (HostType type : hostTypes) {
+            count += type.count;
+        }
+        return count;
+    }
+
+    public int vmCount() {
+        int count = 0;
+        for (VmType type : vmTypes) {
+            count += type.count;
+        }
+        return count;
+    }
+
+    /** Every host of every type, ids from 0 in spec order. */
+    public List<Host> createHosts() {
+        List<Host> hostList = new ArrayList<>(hostCount());
+        int id = 0;
+        for (HostType type : hostTypes) {
+            for (int i = 0; i < type.count; i++) {
+                hostList.add(type.create(id++));
+            }
+        }
+        return hostList;
+    }
+
+    public Datacenter createDatacenter(String name) throws Exception {
+        List<Host> hostList = createHosts();
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                datacenter.getOrDefault("arch", "x86"),
+                datacenter.getOrDefault("os", "Linux"),
+                datacenter.getOrDefault("vmm", "Xen"),
+                hostList,
+                doubleValue(datacenter, "timeZone", 10.0),
+                doubleValue(datacenter, "cost", 3.0),
+                doubleValue(datacenter, "costPerMem", 0.05),
+                doubleValue(datacenter, "costPerStorage", 0.001),
+                doubleValue(datacenter, "costPerBw", 0.0));
+        return new Datacenter(name, characteristics, new VmAllocationPolicySimple(hostList),
+                new LinkedList<Storage>(), doubleValue(datacenter, "schedulingInterval", 0));
+    }
+
+    /** Every VM of every type for brokerId, ids from 1 in spec order. */
+    public List<Vm> createVms(int brokerId) {
+        List<Vm> vmList = new ArrayList<>(vmCount());
+        int id = 1;
+        for (VmType type : vmTypes) {
+            for (int i = 0; i < type.count; i++) {
+                vmList.add(type.create(id++, brokerId));
+            }
+        }
+        return vmList;
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        long value = longValue(values, key, defaultValue);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(key + " is too large: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long longValue(Map<String, String> values, String key, long defaultValue) {
+        String value = values.get(key);
+        // e notation is accepted, so count=1e4 works
+        long parsed = value == null ? defaultValue : (long) Double.parseDouble(value);
+        if (parsed < 0) {
+            throw new IllegalArgumentException(key + " must not be negative: " + value);
+        }
+        return parsed;
+    }
+
+    private static double doubleValue(Map<String, String> values, String key, double defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static void checkUsed(Map<String, String> values, String what, String... keys) {
+        Set<String> unknown = new TreeSet<>(values.keySet());
+        unknown.removeAll(Arrays.asList(keys));
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown keys for " + what + ": " + unknown);
+        }
+    }
+
+    /**
+     * Builds the topology in spec and reports how long that takes and how much
+     * heap the hosts and VMs hold.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: java hamm.Topology spec.txt");
+        }
+        Topology topology = load(Paths.get(args[0]));
+        Log.disable();
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long start = System.nanoTime();
+        // CloudSim keeps the datacenter registered, so it stays reachable for the heap reading
+        topology.createDatacenter("Datacenter_0");
+        long hostsBuilt = System.nanoTime();
+        List<Vm> vmList = topology.createVms(0);
+        long vmsBuilt = System.nanoTime();
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        long pes = 0;
+        double hostMips = 0;
+        for (HostType type : topology.hostTypes) {
+            pes += (long) type.count * type.pes;
+            hostMips += (double) type.count * type.pes * type.mips;
+        }
+        double vmMips = 0;
+        for (VmType type : topology.vmTypes) {
+            vmMips += type.count * type.pes * type.mips;
+        }
+        System.out.println(String.format(Locale.ROOT, "%d hosts with %d PEs (%.0f MIPS), %d VMs (%.0f MIPS requested)",
+                topology.hostCount(), pes, hostMips, vmList.size(), vmMips));
+        System.out.println(String.format(Locale.ROOT, "Hosts and datacenter built in %.1f ms, VMs in %.1f ms",
+                (hostsBuilt - start) / 1e6, (vmsBuilt - hostsBuilt) / 1e6));
+        System.out.println(String.format(Locale.ROOT, "Heap held: %.1f MB, %.0f bytes per host or VM",
+                (heapAfter - heapBefore) / 1048576.0,
+                (double) (heapAfter - heapBefore) / Math.max(1, topology.hostCount() + vmList.size())));
+    }
+}
@@ -0,0 +1,165 @@
+package hamm;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Cached per-VM loads kept in a binary min-heap, so the least loaded VM can be
+ * found in O(1) and updated in O(log m) instead of re-summing every VM.
+ *
+ * VMs are identified by their index (0 to capacity - 1). Ties on load go to the
+ * lowest index, which is the same VM the linear scan in addToMinVM picks.
+ */
+public class VmLoadIndex {
+
+    private final long[] loads;
+    private final int[] heap;
+    private final int[] position; // where each vm sits in the heap, -1 when not indexed
+    private int size;
+    private long comparisons;
+
+    /**
+     * Creates an index holding vmCount VMs, all with no load.
+     */
+    public VmLoadIndex(int vmCount) {
+        this(vmCount, vmCount);
+    }
+
+    private VmLoadIndex(int capacity, int vmCount) {
+        loads = new long[capacity];
+        heap = new int[capacity];
+        position = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            position[i] = -1;
+        }
+        // equal loads ordered by index already form a valid heap
+        for (int i = 0; i < vmCount; i++) {
+            heap[i] = i;
+            position[i] = i;
+        }
+        size = vmCount;
+    }
+
+    /**
+     * Creates an index with room for capacity VMs that holds none of them yet.
+     */
+    public static VmLoadIndex empty(int capacity) {
+        return new VmLoadIndex(capacity, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int vm) {
+        return position[vm] >= 0;
+    }
+
+    public long load(int vm) {
+        return loads[vm];
+    }
+
+    /**
+     * The VM with the smallest load, lowest index on ties.
+     */
+    public int leastLoaded() {
+        if (size == 0) {
+            throw new NoSuchElementException("no VMs in the index");
+        }
+        return heap[0];
+    }
+
+    /** Load comparisons the heap has made so far. */
+    public long comparisons() {
+        return comparisons;
+    }
+
+    public void addLoad(int vm, long delta) {
+        setLoad(vm, loads[vm] + delta);
+    }
+
+    public void setLoad(int vm, long load) {
+        long old = loads[vm];
+        loads[vm] = load;
+        if (position[vm] < 0) {
+            return;
+        }
+        if (load < old) {
+            siftUp(position[vm]);
+        } else {
+            siftDown(position[vm]);
+        }
+    }
+
+    public void insert(int vm, long load) {
+        if (position[vm] >= 0) {
+            throw new IllegalArgumentException("VM " + vm + " is already indexed");
+        }
+        loads[vm] = load;
+        heap[size] = vm;
+        position[vm] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    public void remove(int vm) {
+        int i = position[vm];
+        if (i < 0) {
+            return;
+        }
+        size--;
+        position[vm] = -1;
+        if (i == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[i] = last;
+        position[last] = i;
+        siftUp(i);
+        siftDown(position[last]);
+    }
+
+    private boolean less(int a, int b) {
+        comparisons++;
+        return loads[a] < loads[b] || (loads[a] == loads[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        int vm = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(vm, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = vm;
+        position[vm] = i;
+    }
+
+    private void siftDown(int i) {
+        int vm = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], vm)) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = vm;
+        position[vm] = i;
+    }
+}
@@ -0,0 +1,313 @@
+package hamm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Expected completion times of VMs that run at different speeds.
+ *
+ * A VM's finish time is its load divided by its capacity (MIPS times PEs). VMs
+ * with the same capacity form a speed class. Within a class the fastest
+ * finishing VM is simply the least loaded one, so each class keeps its VMs in
+ * a VmLoadIndex, and the class heads sit in one more binary heap ordered by
+ * their current finish time. Updates cost O(log m), and nothing is recomputed
+ * for all VMs when a task is placed.
+ *
+ * latestFinish() reads the top of that heap. Which class finishes a task
+ * earliest depends on the task's size, so earliestFinish() walks the heap
+ * instead, skipping every class whose head finishes too late to win even on
+ * the fastest VM. It only reaches all classes when they finish within a task's
+ * runtime of each other; scannedClasses() counts what it looked at.
+ *
+ * An index is either earliest first, answering earliestFinish(), or latest
+ * first, answering latestFinish(). Ties go to the lowest VM index.
+ */
+public class VmSpeedIndex {
+
+    private final double[] capacities;
+    private final long[] loads;
+    private final boolean latestFirst;
+
+    private final int[] classOf;
+    private final int[] localIndex;
+    private final int[][] classMembers;
+    private final double[] classCapacities;
+    private final VmLoadIndex[] classes;
+    private final double maxCapacity;
+    private int size;
+
+    // classes holding VMs, in a binary heap ordered by the finish time of their head
+    private final int[] classHeap;
+    private final int[] heapPosition;
+    private final double[] headTimes;
+    private final int[] headVms;
+    private final int[] pending;
+    private int heapSize;
+    private long scanned;
+
+    private VmSpeedIndex(double[] capacities, boolean latestFirst) {
+        this.capacities = capacities;
+        this.latestFirst = latestFirst;
+        int vmCount = capacities.length;
+        loads = new long[vmCount];
+        classOf = new int[vmCount];
+        localIndex = new int[vmCount];
+
+        Map<Double, Integer> classIds = new HashMap<>();
+        int[] classSizes = new int[vmCount];
+        for (int vm = 0; vm < vmCount; vm++) {
+            if (!(capacities[vm] > 0)) {
+                throw new IllegalArgumentException("VM " + vm + " has no capacity: " + capacities[vm]);
+            }
+            Integer id = classIds.get(capacities[vm]);
+            if (id == null) {
+                id = classIds.size();
+                classIds.put(capacities[vm], id);
+            }
+            classOf[vm] = id;
+            // vms join their class in index order, so local ties resolve to the lowest vm
+            localIndex[vm] = classSizes[id]++;
+        }
+
+        int classCount = classIds.size();
+        classMembers = new int[classCount][];
+        classCapacities = new double[classCount];
+        classes = new VmLoadIndex[classCount];
+        for (int c = 0; c < classCount; c++) {
+            classMembers[c] = new int[classSizes[c]];
+            classes[c] = VmLoadIndex.empty(classSizes[c]);
+        }
+        double max = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            classMembers[classOf[vm]][localIndex[vm]] = vm;
+            classCapacities[classOf[vm]] = capacities[vm];
+            max = Math.max(max, capacities[vm]);
+        }
+        maxCapacity = max;
+
+        classHeap = new int[classCount];
+        heapPosition = new int[classCount];
+        Arrays.fill(heapPosition, -1);
+        headTimes = new double[classCount];
+        headVms = new int[classCount];
+        pending = new int[classCount];
+    }
+
+    /**
+     * An index answering earliestFinish(), holding every VM with no load.
+     */
+    public static VmSpeedIndex earliestFirst(double[] capacities) {
+        VmSpeedIndex index = new VmSpeedIndex(capacities, false);
+        for (int vm = 0; vm < capacities.length; vm++) {
+            index.insert(vm, 0);
+        }
+        return index;
+    }
+
+    /**
+     * An index answering earliestFinish() that holds no VMs yet.
+     */
+    public static VmSpeedIndex emptyEarliestFirst(double[] capacities) {
+        return new VmSpeedIndex(capacities, false);
+    }
+
+    /**
+     * An index answering latestFinish() that holds no VMs yet.
+     */
+    public static VmSpeedIndex emptyLatestFirst(double[] capacities) {
+        return new VmSpeedIndex(capacities, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int vm) {
+        return classes[classOf[vm]].contains(localIndex[vm]);
+    }
+
+    public long load(int vm) {
+        return loads[vm];
+    }
+
+    /** Number of speed classes. */
+    public int speedClasses() {
+        return classes.length;
+    }
+
+    /** Class heads compared by all lookups so far. */
+    public long scannedClasses() {
+        return scanned;
+    }
+
+    public double capacity(int vm) {
+        return capacities[vm];
+    }
+
+    /** Time for vm to work through its current load. */
+    public double finishTime(int vm) {
+        return loads[vm] / capacities[vm];
+    }
+
+    public void insert(int vm, long load) {
+        loads[vm] = load;
+        classes[classOf[vm]].insert(localIndex[vm], key(load));
+        size++;
+        updateHead(classOf[vm]);
+    }
+
+    public void remove(int vm) {
+        if (contains(vm)) {
+            classes[classOf[vm]].remove(localIndex[vm]);
+            size--;
+            updateHead(classOf[vm]);
+        }
+    }
+
+    public void addLoad(int vm, long delta) {
+        loads[vm] += delta;
+        if (contains(vm)) {
+            classes[classOf[vm]].setLoad(localIndex[vm], key(loads[vm]));
+            updateHead(classOf[vm]);
+        }
+    }
+
+    /**
+     * The VM that would finish a task of taskSize soonest once the task is
+     * added to its load.
+     */
+    public int earliestFinish(long taskSize) {
+        if (latestFirst) {
+            throw new IllegalStateException("index is ordered latest finish first");
+        }
+        if (heapSize == 0) {
+            throw new NoSuchElementException("no VMs in the index");
+        }
+        // no VM takes less than this to run the task, so a class whose head already
+        // finishes later than bestTime - fastestRun, and every class below it, loses
+        double fastestRun = taskSize / maxCapacity;
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        int top = 0;
+        pending[top++] = 0;
+        while (top > 0) {
+            int position = pending[--top];
+            int c = classHeap[position];
+            // the slack keeps rounding from skipping a class that ties
+            if (headTimes[c] + fastestRun > bestTime * (1 + 1e-12)) {
+                continue;
+            }
+            scanned++;
+            int vm = headVms[c];
+            double time = (loads[vm] + taskSize) / classCapacities[c];
+            if (time < bestTime || (time == bestTime && vm < best)) {
+                best = vm;
+                bestTime = time;
+            }
+            int child = 2 * position + 1;
+            if (child < heapSize) {
+                pending[top++] = child;
+            }
+            if (child + 1 < heapSize) {
+                pending[top++] = child + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The VM whose current load finishes last.
+     */
+    public int latestFinish() {
+        if (!latestFirst) {
+            throw new IllegalStateException("index is ordered earliest finish first");
+        }
+        if (heapSize == 0) {
+            throw new NoSuchElementException("no VMs in the index");
+        }
+        scanned++;
+        return headVms[classHeap[0]];
+    }
+
+    /** Moves class c in the class heap after its head or its head's load changed. */
+    private void updateHead(int c) {
+        if (classes[c].isEmpty()) {
+            if (heapPosition[c] >= 0) {
+                int position = heapPosition[c];
+                heapPosition[c] = -1;
+                heapSize--;
+                if (position < heapSize) {
+                    int moved = classHeap[heapSize];
+                    place(moved, position);
+                    siftUp(position);
+                    siftDown(heapPosition[moved]);
+                }
+            }
+            return;
+        }
+        int vm = classMembers[c][classes[c].leastLoaded()];
+        headVms[c] = vm;
+        headTimes[c] = loads[vm] / classCapacities[c];
+        if (heapPosition[c] < 0) {
+            place(c, heapSize++);
+        }
+        siftUp(heapPosition[c]);
+        siftDown(heapPosition[c]);
+    }
+
+    private void siftUp(int position) {
+        int c = classHeap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(c, classHeap[parent])) {
+                break;
+            }
+            place(classHeap[parent], position);
+            position = parent;
+        }
+        place(c, position);
+    }
+
+    private void siftDown(int position) {
+        int c = classHeap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(classHeap[child + 1], classHeap[child])) {
+                child++;
+            }
+            if (!before(classHeap[child], c)) {
+                break;
+            }
+            place(classHeap[child], position);
+            position = child;
+        }
+        place(c, position);
+    }
+
+    private void place(int c, int position) {
+        classHeap[position] = c;
+        heapPosition[c] = position;
+    }
+
+    /** Whether class a's head comes first, ties going to the lower VM. */
+    private boolean before(int a, int b) {
+        if (headTimes[a] != headTimes[b]) {
+            return latestFirst ? headTimes[a] > headTimes[b] : headTimes[a] < headTimes[b];
+        }
+        return headVms[a] < headVms[b];
+    }
+
+    private long key(long load) {
+        // class heaps are min-heaps, so a latest first index keeps the most loaded vm on top
+        return latestFirst ? -load : load;
+    }
+}
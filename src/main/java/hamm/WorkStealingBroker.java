@@ -0,0 +1,194 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A HAMMBroker that keeps rebalancing while the simulation runs.
+ *
+ * Cloudlets are scheduled with HAMM or EHAMM as usual, but each VM is only
+ * given window cloudlets at a time. The rest wait in a per-VM queue in the
+ * broker. Each VM runs its own queue largest first. When a cloudlet returns,
+ * its VM gets the next one from its queue. If that queue is empty, it steals
+ * the smallest waiting cloudlet from the VM with the most outstanding work.
+ *
+ * Outstanding work is the estimated length of a VM's queued and running
+ * cloudlets. A steal uses the load accounting of reschedule: it only happens
+ * when it shrinks the gap between the two VMs' outstanding work. The
+ * schedule returned by getSchedule() is updated with every steal.
+ *
+ * With stealing turned off the broker still hands out window cloudlets at a
+ * time, largest first, so a run with and one without stealing differ in
+ * nothing else.
+ */
+public class WorkStealingBroker extends HAMMBroker {
+
+    private final int window;
+    private final boolean stealing;
+    private int steals;
+
+    private List<Cloudlet> cloudlets;
+    private Schedule schedule;
+    private long[] cloudletsById; // (cloudlet id << 32) | index, sorted
+
+    private int[] queue;          // cloudlet indices grouped by vm, each group sorted by estimated length
+    private int[] queueLow;       // first queued cloudlet of each vm
+    private int[] queueHigh;      // end of each vm's queue
+    private int[] running;
+    private long[] outstanding;
+    private VmLoadIndex victims;  // vms with queued cloudlets, keyed by minus their outstanding work
+
+    public WorkStealingBroker(String name, SchedulingAlgorithm algorithm, int window) throws Exception {
+        this(name, algorithm, window, true);
+    }
+
+    public WorkStealingBroker(String name, SchedulingAlgorithm algorithm, int window, boolean stealing) throws Exception {
+        super(name, algorithm);
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1: " + window);
+        }
+        this.window = window;
+        this.stealing = stealing;
+    }
+
+    /** Number of cloudlets that ran on another VM than scheduled. */
+    public int getSteals() {
+        return steals;
+    }
+
+    @Override
+    protected void submitCloudlets() {
+        List<Cloudlet> submitted = getCloudletList();
+        scheduleCloudlets(submitted);
+        cloudlets = new ArrayList<>(submitted);
+        schedule = getSchedule();
+        int vmCount = schedule.vmCount();
+        int cloudletCount = cloudlets.size();
+
+        cloudletsById = new long[cloudletCount];
+        for (int i = 0; i < cloudletCount; i++) {
+            cloudletsById[i] = ((long) cloudlets.get(i).getCloudletId() << 32) | i;
+        }
+        Arrays.sort(cloudletsById);
+
+        int[] offsets = new int[vmCount + 1];
+        queue = schedule.tasksByVm(offsets);
+        long[] keys = new long[cloudletCount];
+        for (int i = 0; i < cloudletCount; i++) {
+            keys[i] = ((long) schedule.taskSize(queue[i]) << 32) | queue[i];
+        }
+        queueLow = new int[vmCount];
+        queueHigh = new int[vmCount];
+        running = new int[vmCount];
+        outstanding = new long[vmCount];
+        victims = VmLoadIndex.empty(vmCount);
+        for (int vm = 0; vm < vmCount; vm++) {
+            Arrays.sort(keys, offsets[vm], offsets[vm + 1]);
+            for (int i = offsets[vm]; i < offsets[vm + 1]; i++) {
+                queue[i] = (int) keys[i];
+            }
+            queueLow[vm] = offsets[vm];
+            queueHigh[vm] = offsets[vm + 1];
+            outstanding[vm] = schedule.load(vm);
+            if (queueLow[vm] < queueHigh[vm]) {
+                victims.insert(vm, -outstanding[vm]);
+            }
+        }
+
+        // the broker hands cloudlets out itself from here on
+        getCloudletSubmittedList().addAll(cloudlets);
+        submitted.clear();
+        for (int vm = 0; vm < vmCount; vm++) {
+            refill(vm);
+        }
+    }
+
+    @Override
+    protected void processCloudletReturn(SimEvent ev) {
+        Cloudlet cloudlet = (Cloudlet) ev.getData();
+        int index = indexOf(cloudlet.getCloudletId());
+        int vm = schedule.vmOf(index);
+        running[vm]--;
+        outstanding[vm] -= schedule.taskSize(index);
+        if (victims.contains(vm)) {
+            victims.setLoad(vm, -outstanding[vm]);
+        }
+
+        // hand out more work before the base class counts this return, so it only
+        // finishes once nothing is running or queued anywhere
+        refill(vm);
+        super.processCloudletReturn(ev);
+    }
+
+    private void refill(int vm) {
+        while (running[vm] < window) {
+            if (queueLow[vm] < queueHigh[vm]) {
+                dispatch(queue[--queueHigh[vm]], vm);
+                if (queueLow[vm] == queueHigh[vm]) {
+                    victims.remove(vm);
+                }
+            } else if (!stealing || !steal(vm)) {
+                return;
+            }
+        }
+    }
+
+    private boolean steal(int thief) {
+        if (victims.isEmpty()) {
+            return false;
+        }
+        int victim = victims.leastLoaded();
+        int index = queue[queueLow[victim]];
+        int size = schedule.taskSize(index);
+
+        long difference = outstanding[victim] - outstanding[thief];
+        long differenceAfterStealing = (outstanding[victim] - size) - (outstanding[thief] + size);
+        if (Math.abs(difference) <= Math.abs(differenceAfterStealing)) {
+            return false;
+        }
+
+        queueLow[victim]++;
+        outstanding[victim] -= size;
+        outstanding[thief] += size;
+        if (queueLow[victim] == queueHigh[victim]) {
+            victims.remove(victim);
+        } else {
+            victims.setLoad(victim, -outstanding[victim]);
+        }
+        schedule.move(index, thief);
+        steals++;
+        Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + getScheduledVms().get(thief).getId()
+                + " stole cloudlet " + cloudlets.get(index).getCloudletId()
+                + " from VM #" + getScheduledVms().get(victim).getId());
+        dispatch(index, thief);
+        return true;
+    }
+
+    private void dispatch(int index, int vm) {
+        running[vm]++;
+        submitCloudlet(cloudlets.get(index), vm);
+    }
+
+    private int indexOf(int cloudletId) {
+        int lo = 0;
+        int hi = cloudletsById.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = (int) (cloudletsById[mid] >> 32);
+            if (id < cloudletId) {
+                lo = mid + 1;
+            } else if (id > cloudletId) {
+                hi = mid - 1;
+            } else {
+                return (int) cloudletsById[mid];
+            }
+        }
+        throw new IllegalStateException("Cloudlet " + cloudletId + " was not submitted by " + getName());
+    }
+}
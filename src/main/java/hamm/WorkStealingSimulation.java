@@ -0,0 +1,175 @@
+package hamm;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/**
+ * Compares static EHAMM with the work stealing broker when actual cloudlet
+ * lengths differ from the estimates HAMM schedules on.
+ *
+ * All three runs schedule the same estimates with EHAMM. The cloudlets
+ * actually execute the estimates scaled by log-normal noise. The static run
+ * is a plain HAMMBroker that submits every cloudlet at once. The windowed
+ * run hands each VM a window of its cloudlets at a time, largest first,
+ * and the work stealing run does the same but also moves queued cloudlets
+ * as VMs drain. Makespan and completion time statistics of the three runs
+ * are printed side by side, with the stealing run's improvement over
+ * static EHAMM and over the windowed run.
+ */
+public class WorkStealingSimulation extends HAMMSimulation {
+
+    private static int steals;
+
+    private enum Run { STATIC, WINDOWED, STEALING }
+
+    /**
+     * Optional arguments: number of tasks, number of VMs, seed, task size
+     * distribution, sigma of the log-normal estimation error and cloudlets in
+     * flight per VM, defaulting to 100, 6, 5555, UNIFORM, 0.5 and 1.
+     */
+    public static void main(String[] args) {
+
+        Log.printLine("Starting work stealing comparison...");
+
+        try {
+            int numTasks = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+            int vmCount = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 5555;
+            TaskDistribution distribution = args.length > 3 ? TaskDistribution.valueOf(args[3]) : TaskDistribution.UNIFORM;
+            double sigma = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+            int window = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+
+            int[] estimates = distribution.generate(numTasks, seed);
+            long[] actual = new long[numTasks];
+            Random rand = new Random(seed + 1);
+            for (int i = 0; i < numTasks; i++) {
+                actual[i] = Math.max(1, Math.round(estimates[i] * Math.exp(sigma * rand.nextGaussian())));
+            }
+
+            Log.disable();
+            double[] staticTimes = completionTimes(simulate(estimates, actual, vmCount, window, Run.STATIC));
+            double[] windowedTimes = completionTimes(simulate(estimates, actual, vmCount, window, Run.WINDOWED));
+            double[] stealingTimes = completionTimes(simulate(estimates, actual, vmCount, window, Run.STEALING));
+            Log.enable();
+
+            String indent = "    ";
+            Log.printLine();
+            Log.printLine("========== STATIC EHAMM vs WORK STEALING, WINDOW " + window + " ==========");
+            Log.printLine(String.format(Locale.ROOT, "%-8s%s%10s%s%10s%s%10s%s%10s%s%10s", "Metric",
+                    indent, "EHAMM", indent, "Windowed", indent, "Stealing", indent, "vs EHAMM", indent, "vs window"));
+            printComparison("Makespan", staticTimes, windowedTimes, stealingTimes, 100);
+            printComparison("Mean", staticTimes, windowedTimes, stealingTimes, -1);
+            printComparison("p50", staticTimes, windowedTimes, stealingTimes, 50);
+            printComparison("p95", staticTimes, windowedTimes, stealingTimes, 95);
+            printComparison("p99", staticTimes, windowedTimes, stealingTimes, 99);
+            Log.printLine("Steals: " + steals);
+
+            Log.printLine("Work stealing comparison finished!");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Runs one simulation of the actual lengths scheduled on the estimates with
+     * EHAMM: all at once, or window cloudlets in flight per VM without or with
+     * stealing.
+     */
+    private static List<Cloudlet> simulate(int[] estimates, long[] actual, int vmCount, int window, Run run)
+            throws Exception {
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        @SuppressWarnings("unused")
+        Datacenter datacenter0 = createDatacenter("Datacenter_0");
+
+        HAMMBroker broker = run == Run.STATIC
+                ? new HAMMBroker("Broker", SchedulingAlgorithm.EHAMM)
+                : new WorkStealingBroker("Broker", SchedulingAlgorithm.EHAMM, window, run == Run.STEALING);
+        int brokerId = broker.getId();
+
+        //VM description, the same as the simulations
+        List<Vm> vmlist = new ArrayList<Vm>();
+        int mips = 100;
+        long size = 10000; //image size (MB)
+        int ram = 500; //vm memory (MB)
+        long bw = 1000;
+        int pesNumber = 1; //number of cpus
+        String vmm = "Xen"; //VMM name
+        for (int i = 1; i <= vmCount; i++) {
+            vmlist.add(new Vm(i, brokerId, mips, pesNumber, ram, bw, size, vmm, new CloudletSchedulerTimeShared()));
+        }
+        broker.submitVmList(vmlist);
+
+        long fileSize = 300;
+        long outputSize = 300;
+        UtilizationModel utilizationModel = new UtilizationModelFull();
+        List<Cloudlet> cloudletList = new ArrayList<Cloudlet>(actual.length);
+        for (int task = 0; task < actual.length; task++) {
+            Cloudlet cloudlet = new Cloudlet(task, actual[task], pesNumber, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+            cloudlet.setUserId(brokerId);
+            cloudletList.add(cloudlet);
+        }
+        broker.setEstimatedLengths(estimates);
+        broker.submitCloudletList(cloudletList);
+
+        CloudSim.startSimulation();
+        List<Cloudlet> received = broker.getCloudletReceivedList();
+        CloudSim.stopSimulation();
+
+        if (run == Run.STEALING) {
+            steals = ((WorkStealingBroker) broker).getSteals();
+        }
+        return received;
+    }
+
+    /** Finish times of every cloudlet, measured from the first start, sorted. */
+    private static double[] completionTimes(List<Cloudlet> list) {
+        double firstStart = Double.POSITIVE_INFINITY;
+        for (Cloudlet cloudlet : list) {
+            firstStart = Math.min(firstStart, cloudlet.getExecStartTime());
+        }
+        double[] times = new double[list.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = list.get(i).getFinishTime() - firstStart;
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    /** Nearest rank percentile of sorted values. */
+    static double percentile(double[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    /** Prints the percentile of each run, or the mean when percent is negative. */
+    private static void printComparison(String metric, double[] staticTimes, double[] windowedTimes,
+                                        double[] stealingTimes, double percent) {
+        String indent = "    ";
+        double staticValue = percent < 0 ? mean(staticTimes) : percentile(staticTimes, percent);
+        double windowedValue = percent < 0 ? mean(windowedTimes) : percentile(windowedTimes, percent);
+        double stealingValue = percent < 0 ? mean(stealingTimes) : percentile(stealingTimes, percent);
+        Log.printLine(String.format(Locale.ROOT, "%-8s%s%10.2f%s%10.2f%s%10.2f%s%9.2f%%%s%9.2f%%",
+                metric, indent, staticValue, indent, windowedValue, indent, stealingValue,
+                indent, improvement(staticValue, stealingValue), indent, improvement(windowedValue, stealingValue)));
+    }
+
+    private static double improvement(double baseline, double value) {
+        return baseline == 0 ? 0 : 100 * (baseline - value) / baseline;
+    }
+}
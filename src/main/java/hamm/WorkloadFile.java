@@ -0,0 +1,314 @@
+package hamm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A task trace on disk: the task sizes of a workload in a flat binary file.
+ *
+ * The file is a 16 byte header followed by the sizes, all little endian:
+ * <pre>
+ *   int  magic         0x48545243 ("HTRC")
+ *   int  element bytes 4 for int sizes, 8 for long sizes
+ *   long task count
+ *   int or long sizes, task count of them
+ * </pre>
+ * Traces are read through memory-mapped buffers, one mapping per chunk of at
+ * most 1 GB, so files of any length can be read without going through the
+ * heap. Sizes come out as an int[] or one at a time from an iterator, never
+ * boxed. WorkloadImporter writes traces from CSV and SWF files.
+ *
+ * Usage: java hamm.WorkloadFile trace.bin [--vms 6] [--algorithms HAMM,EHAMM] [--limit 1e8]
+ */
+public class WorkloadFile {
+
+    static final int MAGIC = 0x48545243;
+    static final int HEADER_BYTES = 16;
+
+    // mappings stay below the 2 GB a single buffer can address
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private final Path path;
+    private final int elementBytes;
+    private final long count;
+
+    private WorkloadFile(Path path, int elementBytes, long count) {
+        this.path = path;
+        this.elementBytes = elementBytes;
+        this.count = count;
+    }
+
+    /**
+     * Reads the header of the trace at path.
+     */
+    public static WorkloadFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException(path + " is too short to be a task trace");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a task trace");
+            }
+            int elementBytes = header.getInt();
+            if (elementBytes != 4 && elementBytes != 8) {
+                throw new IOException(path + " has unsupported element size " + elementBytes);
+            }
+            long count = header.getLong();
+            long expected = HEADER_BYTES + count * elementBytes;
+            if (count < 0 || channel.size() < expected) {
+                throw new IOException(path + " holds " + channel.size() + " bytes, the header promises " + expected);
+            }
+            return new WorkloadFile(path, elementBytes, count);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Number of tasks in the trace. */
+    public long count() {
+        return count;
+    }
+
+    /** 4 if the sizes are stored as ints, 8 if as longs. */
+    public int elementBytes() {
+        return elementBytes;
+    }
+
+    /** Every task size of the trace. */
+    public int[] readInts() throws IOException {
+        return readInts(count);
+    }
+
+    /**
+     * The first limit task sizes of the trace, or all of them if it holds fewer.
+     * Negative sizes, and long sizes that do not fit in an int, are rejected.
+     */
+    public int[] readInts(long limit) throws IOException {
+        long n = Math.min(limit, count);
+        if (n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " tasks do not fit in one array");
+        }
+        int[] sizes = new int[(int) n];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int filled = 0;
+            while (filled < n) {
+                int length = (int) Math.min(n - filled, CHUNK_BYTES / elementBytes);
+                MappedByteBuffer chunk = map(channel, filled, length);
+                if (elementBytes == 4) {
+                    chunk.asIntBuffer().get(sizes, filled, length);
+                    // checked after the bulk copy, which stays one pass over the mapping
+                    for (int i = filled; i < filled + length; i++) {
+                        if (sizes[i] < 0) {
+                            toInt(sizes[i], i);
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        sizes[filled + i] = toInt(chunk.getLong(), filled + i);
+                    }
+                }
+                filled += length;
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Iterates over every task size of the trace, one chunk mapped at a time.
+     * Each chunk is mapped through a channel that is closed right away, as a
+     * mapping outlives its channel, so an iterator left unfinished holds no
+     * file open. The first chunk is mapped here, so a missing or unreadable
+     * trace fails on this call.
+     */
+    public PrimitiveIterator.OfInt iterator() throws IOException {
+        MappedByteBuffer first = count == 0 ? null : mapChunk(0);
+        return new PrimitiveIterator.OfInt() {
+            private long next;
+            private MappedByteBuffer chunk = first;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                if (!chunk.hasRemaining()) {
+                    try {
+                        chunk = mapChunk(next);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not map " + path, e);
+                    }
+                }
+                int size = toInt(elementBytes == 4 ? chunk.getInt() : chunk.getLong(), next);
+                next++;
+                return size;
+            }
+        };
+    }
+
+    /** Maps the chunk starting at task first through a channel of its own. */
+    private MappedByteBuffer mapChunk(long first) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel, first, (int) Math.min(count - first, CHUNK_BYTES / elementBytes));
+        }
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long first, int length) throws IOException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                HEADER_BYTES + first * elementBytes, (long) length * elementBytes);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        return chunk;
+    }
+
+    private int toInt(long size, long task) {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Task " + task + " of " + path + " has size " + size + ", which does not fit in an int");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Writes sizes as an int trace.
+     */
+    public static void write(Path path, int[] sizes) throws IOException {
+        try (Writer writer = new Writer(path, 4)) {
+            for (int size : sizes) {
+                writer.add(size);
+            }
+        }
+    }
+
+    /**
+     * Appends task sizes to a new trace through a buffer, and fills in the task
+     * count in the header when closed.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final int elementBytes;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long count;
+
+        /**
+         * @param elementBytes 4 to store sizes as ints, 8 to store them as longs
+         */
+        public Writer(Path path, int elementBytes) throws IOException {
+            if (elementBytes != 4 && elementBytes != 8) {
+                throw new IllegalArgumentException("element size must be 4 or 8: " + elementBytes);
+            }
+            this.elementBytes = elementBytes;
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            // count is patched in by close()
+            buffer.putInt(MAGIC).putInt(elementBytes).putLong(0);
+        }
+
+        public void add(long size) throws IOException {
+            if (size < 0 || (elementBytes == 4 && size > Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("task size " + size + " does not fit the trace");
+            }
+            if (buffer.remaining() < elementBytes) {
+                drain();
+            }
+            if (elementBytes == 4) {
+                buffer.putInt((int) size);
+            } else {
+                buffer.putLong(size);
+            }
+            count++;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+                ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, count);
+                channel.write(header, 8);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Prints the size of a trace and, for each algorithm, how long loading and
+     * scheduling it takes and the resulting makespan and load variance.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: java hamm.WorkloadFile trace.bin [--vms 6] [--algorithms HAMM,EHAMM] [--limit 1e8]");
+        }
+        Path path = Paths.get(args[0]);
+        int vmCount = 6;
+        SchedulingAlgorithm[] algorithms = {SchedulingAlgorithm.HAMM, SchedulingAlgorithm.EHAMM};
+        long limit = Long.MAX_VALUE;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--vms":
+                    vmCount = SweepRunner.parseInts(value)[0];
+                    break;
+                case "--algorithms":
+                    algorithms = SweepRunner.parseEnums(value, SchedulingAlgorithm.class);
+                    break;
+                case "--limit":
+                    limit = SweepRunner.parseInts(value)[0];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        WorkloadFile workload = open(path);
+        long start = System.nanoTime();
+        int[] sizes = workload.readInts(limit);
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%s: %d tasks of %d bytes, loaded %d in %.3f s",
+                path, workload.count(), workload.elementBytes(), sizes.length, loadSeconds));
+
+        for (SchedulingAlgorithm algorithm : algorithms) {
+            start = System.nanoTime();
+            Schedule schedule = algorithm.schedule(sizes, vmCount);
+            double scheduleSeconds = (System.nanoTime() - start) / 1e9;
+            long maxLoad = 0;
+            for (int vm = 0; vm < vmCount; vm++) {
+                maxLoad = Math.max(maxLoad, schedule.load(vm));
+            }
+            System.out.println(String.format(Locale.ROOT, "%-6s on %d VMs: scheduled in %.3f s, max load %d, load variance %.4f",
+                    algorithm, vmCount, scheduleSeconds, maxLoad, RunMetrics.loadVariance(schedule)));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package hamm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Converts task traces into the binary format of WorkloadFile.
+ *
+ * CSV: one task per line, the size in --column (0 based). A first line whose
+ * column is not a number is taken as a header and skipped.
+ *
+ * SWF (Standard Workload Format): whitespace separated fields, lines starting
+ * with ';' are comments. A job's size is its run time (field 4) times its
+ * allocated processors (field 5). Jobs without a run time are skipped, and a
+ * job without a processor count counts as one processor.
+ *
+ * Every size is multiplied by --scale and rounded. Instead of --in, --generate
+ * writes --tasks sizes of one of the TaskDistributions.
+ *
+ * Usage: java hamm.WorkloadImporter --in trace.swf --format SWF --out trace.bin [--column 0] [--scale 1] [--long]
+ *        java hamm.WorkloadImporter --generate UNIFORM --tasks 1e8 --seed 5555 --out trace.bin
+ */
+public class WorkloadImporter {
+
+    public enum Format { CSV, SWF }
+
+    private final Format format;
+    private final int column;
+    private final double scale;
+    private long skipped;
+
+    public WorkloadImporter(Format format, int column, double scale) {
+        this.format = format;
+        this.column = column;
+        this.scale = scale;
+    }
+
+    /** Lines that did not describe a usable task in the last import. */
+    public long skipped() {
+        return skipped;
+    }
+
+    /**
+     * Converts the trace at in, returning the number of tasks written to out.
+     */
+    public long importTrace(Path in, Path out, int elementBytes) throws IOException {
+        skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8);
+             WorkloadFile.Writer writer = new WorkloadFile.Writer(out, elementBytes)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                long size = format == Format.CSV ? csvSize(line, lineNumber) : swfSize(line, lineNumber);
+                if (size < 0) {
+                    skipped++;
+                } else {
+                    writer.add(size);
+                }
+            }
+            return writer.count();
+        }
+    }
+
+    private long csvSize(String line, long lineNumber) {
+        String[] fields = line.split(",");
+        if (column >= fields.length) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has no column " + column + ": " + line);
+        }
+        try {
+            return scaled(Double.parseDouble(fields[column].trim()));
+        } catch (NumberFormatException e) {
+            if (lineNumber == 1) {
+                return -1; // header
+            }
+            throw new IllegalArgumentException("Line " + lineNumber + " has no task size in column " + column + ": " + line);
+        }
+    }
+
+    private long swfSize(String line, long lineNumber) {
+        if (line.startsWith(";")) {
+            return -1;
+        }
+        String[] fields = line.split("\\s+");
+        if (fields.length < 5) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not an SWF job: " + line);
+        }
+        double runTime = Double.parseDouble(fields[3]);
+        double processors = Double.parseDouble(fields[4]);
+        if (runTime < 0) {
+            return -1;
+        }
+        return scaled(runTime * Math.max(1, processors));
+    }
+
+    private long scaled(double size) {
+        if (size < 0) {
+            return -1;
+        }
+        return Math.round(size * scale);
+    }
+
+    /**
+     * Writes taskCount sizes of distribution, the same sizes that
+     * distribution.generate(taskCount, seed) returns, without holding them in memory.
+     */
+    public static long generate(TaskDistribution distribution, long taskCount, long seed, Path out) throws IOException {
+        Random rand = new Random(seed);
+        try (WorkloadFile.Writer writer = new WorkloadFile.Writer(out, 4)) {
+            for (long i = 0; i < taskCount; i++) {
+                writer.add(distribution.next(rand));
+            }
+            return writer.count();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path in = null;
+        Path out = null;
+        Format format = Format.CSV;
+        int column = 0;
+        double scale = 1;
+        int elementBytes = 4;
+        TaskDistribution distribution = null;
+        long taskCount = 100;
+        long seed = 5555;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--long")) {
+                elementBytes = 8;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--in":
+                    in = Paths.get(value);
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                case "--format":
+                    format = Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                case "--column":
+                    column = Integer.parseInt(value);
+                    break;
+                case "--scale":
+                    scale = Double.parseDouble(value);
+                    break;
+                case "--generate":
+                    distribution = TaskDistribution.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                    break;
+                case "--tasks":
+                    taskCount = (long) Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (out == null || (in == null) == (distribution == null)) {
+            throw new IllegalArgumentException("Need --out and exactly one of --in and --generate");
+        }
+
+        long start = System.nanoTime();
+        if (distribution != null) {
+            long written = generate(distribution, taskCount, seed, out);
+            System.out.println("Wrote " + written + " " + distribution + " tasks to " + out);
+        } else {
+            WorkloadImporter importer = new WorkloadImporter(format, column, scale);
+            long written = importer.importTrace(in, out, elementBytes);
+            System.out.println("Wrote " + written + " tasks from " + in + " to " + out + ", skipped " + importer.skipped() + " lines");
+        }
+        System.out.println(String.format(Locale.ROOT, "Took %.3f s", (System.nanoTime() - start) / 1e9));
+    }
+}
@@ -0,0 +1,159 @@
+package hamm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The original nested list HAMM, reschedule and calculateLoadBalance, kept
+ * verbatim so the tests can check the faster versions make the same choices.
+ */
+final class Baseline {
+
+    private Baseline() {
+    }
+
+    static List<List<Integer>> HAMM(List<Integer> taskSizes, int vmCount) {
+        List<List<Integer>> vms = new ArrayList<>();
+        for(int i = 0; i < vmCount; i++){
+            vms.add(new ArrayList<>());
+        }
+        //find how many tasks are above average vs below average
+        while (!taskSizes.isEmpty()) {
+            Double average = taskSizes.stream().mapToInt(val -> val).average().orElse(0.0);
+            int lower = 0;
+            int higher = 0;
+            for (Integer size : taskSizes) {
+                if (size <= average) {
+                    lower++;
+                } else {
+                    higher++;
+                }
+            }
+            if (lower >= higher) {
+                maxMin(taskSizes, vms);
+            } else {
+                minMin(taskSizes, vms);
+            }
+        }
+        return vms;
+    }
+
+    static void maxMin(List<Integer> tasks, List<List<Integer>> vms){
+        // take max from tasks, assign to min vm
+        Integer val = Collections.max(tasks);
+        addToMinVM(val, vms);
+        tasks.remove(val);
+    }
+
+    static void minMin(List<Integer> tasks, List<List<Integer>> vms){
+        // take min from tasks, assign to min vm
+        Integer val = Collections.min(tasks);
+        addToMinVM(val, vms);
+        tasks.remove(val);
+    }
+
+    static void addToMinVM(Integer value, List<List<Integer>> vms){
+        Integer min_sum = Integer.MAX_VALUE;
+        int min_index = 0;
+        for(int i = 0; i < vms.size(); i++){
+            List<Integer> vm = vms.get(i);
+            Integer sum = 0;
+            for(Integer val : vm) {
+                sum += val;
+            }
+            if(sum < min_sum){
+                min_sum = sum;
+                min_index = i;
+            }
+        }
+        vms.get(min_index).add(value);
+    }
+
+    static double calculateLoadBalance(List<List<Integer>> vms) {
+        // variance in size of each machine, lower is better
+        int n = vms.size();
+        double meanSize = 0;
+        for (List<Integer> machine : vms) {
+            meanSize += machine.size();
+        }
+        meanSize /= n;
+
+        double variance = 0;
+        for (List<Integer> machine : vms) {
+            int machineSize = machine.size();
+            variance += (machineSize - meanSize) * (machineSize - meanSize);
+        }
+        variance /= (n - 1);
+
+        return variance;
+    }
+
+    /**
+     * Works on the lists of vms in place. The returned lowLoad list holds the
+     * same machines in a different order, so the tests read vms afterwards.
+     */
+    static List<List<Integer>> reschedule(List<List<Integer>> vms) {
+        List<List<Integer>> highLoad = new ArrayList<>();
+        List<List<Integer>> lowLoad = new ArrayList<>();
+
+        highAndLowSplit(vms, highLoad, lowLoad);
+
+        while (!highLoad.isEmpty()) {
+            List<Integer> highLoadMachine = Collections.max(highLoad, Comparator.comparing(List::size));
+            int smallestTask = Collections.min(highLoadMachine);
+            List<Integer> smallestLoadMachine = Collections.min(lowLoad, Comparator.comparing(List::size));
+
+            int smallestLoadMachineSize = smallestLoadMachine.stream().mapToInt(Integer::intValue).sum();
+            int highLoadMachineSize = highLoadMachine.stream().mapToInt(Integer::intValue).sum();
+            int difference = highLoadMachineSize - smallestLoadMachineSize;
+
+            int differenceAfterRescheduling = (highLoadMachineSize - smallestTask) - (smallestLoadMachineSize + smallestTask);
+
+            if (Math.abs(difference) > Math.abs(differenceAfterRescheduling)) {
+                smallestLoadMachine.add(smallestTask);
+                highLoadMachine.remove(Integer.valueOf(smallestTask));
+            } else {
+                lowLoad.add(highLoadMachine);
+                highLoad.remove(highLoadMachine);
+            }
+        }
+        return lowLoad;
+    }
+
+    private static void highAndLowSplit(List<List<Integer>> vms, List<List<Integer>> highLoad, List<List<Integer>> lowLoad) {
+        List<Double> averages = new ArrayList<>();
+        for (List<Integer> vm : vms) {
+            double average = vm.stream().mapToInt(Integer::intValue).average().orElse(0.0);
+            averages.add(average);
+        }
+        double overallAvg = averages.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+
+        for (int i = 0; i < vms.size(); i++) {
+            List<Integer> vm = vms.get(i);
+            double average = averages.get(i);
+            if (overallAvg > average) {
+                highLoad.add(vm);
+            } else {
+                lowLoad.add(vm);
+            }
+        }
+    }
+
+    static List<Integer> boxed(int[] sizes) {
+        List<Integer> list = new ArrayList<>(sizes.length);
+        for (int size : sizes) {
+            list.add(size);
+        }
+        return list;
+    }
+
+    static List<List<Integer>> deepCopy(List<List<Integer>> vms) {
+        List<List<Integer>> copy = new ArrayList<>();
+        for (List<Integer> vm : vms) {
+            copy.add(new ArrayList<>(vm));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,62 @@
+package hamm;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BucketedHAMMTest {
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void oneBucketPerSizeIsExactlyHamm(TaskDistribution distribution) {
+        int[] tasks = distribution.generate(20000, 5555);
+        for (int vmCount : new int[] {1, 6, 100}) {
+            BucketedHAMM hamm = histogram(TaskDistribution.MAX_TASK_SIZE, tasks);
+            Schedule exact = HAMMSimulation.HAMM(tasks, vmCount);
+
+            Schedule realized = hamm.realize(tasks, vmCount);
+            long[] estimated = hamm.schedule(vmCount, null);
+
+            assertArrayEquals(loads(exact), loads(realized));
+            assertArrayEquals(loads(exact), estimated);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void coarseBucketsKeepTheTotalLoad(TaskDistribution distribution) {
+        int[] tasks = distribution.generate(20000, 5555);
+        long total = 0;
+        for (int size : tasks) {
+            total += size;
+        }
+        for (int buckets : new int[] {1, 7, 100, 1000}) {
+            BucketedHAMM hamm = histogram(buckets, tasks);
+
+            long estimated = 0;
+            for (long load : hamm.schedule(6, null)) {
+                estimated += load;
+            }
+
+            assertEquals(total, estimated, buckets + " buckets");
+        }
+    }
+
+    private static BucketedHAMM histogram(int buckets, int[] tasks) {
+        BucketedHAMM hamm = new BucketedHAMM(buckets, TaskDistribution.MAX_TASK_SIZE);
+        for (int size : tasks) {
+            hamm.add(size);
+        }
+        return hamm;
+    }
+
+    private static long[] loads(Schedule schedule) {
+        long[] loads = new long[schedule.vmCount()];
+        for (int vm = 0; vm < loads.length; vm++) {
+            loads[vm] = schedule.load(vm);
+        }
+        return loads;
+    }
+}
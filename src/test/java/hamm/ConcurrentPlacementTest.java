@@ -0,0 +1,90 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentPlacementTest {
+
+    /**
+     * Every thread places single tasks and HAMM batches and takes every other
+     * single task off again; the loads must add up to what is still placed.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void loadsAddUpAcrossThreads(boolean virtual) throws InterruptedException {
+        int threads = virtual ? 256 : 16;
+        int vmCount = 100;
+        ConcurrentPlacement placement = new ConcurrentPlacement(vmCount, 8);
+        Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform();
+        long[] kept = new long[threads];
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            int[] sizes = TaskDistribution.HEAVY_TAILED.generate(4000, 7 + t);
+            workers.add(builder.start(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 2000; i++) {
+                    int vm = placement.place(sizes[i]);
+                    if (i % 2 == 1) {
+                        placement.release(vm, sizes[i]);
+                    } else {
+                        kept[thread] += sizes[i];
+                    }
+                }
+                for (int i = 2000; i < sizes.length; i += 100) {
+                    int[] batch = Arrays.copyOfRange(sizes, i, i + 100);
+                    placement.placeAll(batch);
+                    for (int size : batch) {
+                        kept[thread] += size;
+                    }
+                }
+            }));
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        placement.verify();
+        long expected = 0;
+        for (long load : kept) {
+            expected += load;
+        }
+        long total = 0;
+        for (int vm = 0; vm < vmCount; vm++) {
+            total += placement.load(vm);
+        }
+        assertEquals(expected, total);
+    }
+
+    @Test
+    void oneThreadPlacesOnTheLeastLoadedVm() {
+        int vmCount = 50;
+        ConcurrentPlacement placement = new ConcurrentPlacement(vmCount, 7);
+        VmLoadIndex loads = new VmLoadIndex(vmCount);
+        int[] sizes = TaskDistribution.BIMODAL.generate(5000, 11);
+        for (int i = 0; i < sizes.length; i++) {
+            int vm = placement.place(sizes[i]);
+            assertEquals(loads.leastLoaded(), vm);
+            loads.addLoad(vm, sizes[i]);
+            if (i % 3 == 2) {
+                placement.release(vm, sizes[i]);
+                loads.addLoad(vm, -sizes[i]);
+            }
+        }
+        placement.verify();
+    }
+}
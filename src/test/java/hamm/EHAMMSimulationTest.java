@@ -0,0 +1,96 @@
+package hamm;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EHAMMSimulationTest {
+
+    /** The baseline throws on machines HAMM left empty, so every vm gets a task. */
+    static Stream<Arguments> inputs() {
+        List<Arguments> inputs = new ArrayList<>();
+        for (TaskDistribution distribution : TaskDistribution.values()) {
+            for (int taskCount : new int[] {2, 7, 100, 2000}) {
+                for (int vmCount : new int[] {2, 6, 100}) {
+                    if (taskCount < vmCount) {
+                        continue;
+                    }
+                    inputs.add(Arguments.of(distribution, taskCount, vmCount));
+                }
+            }
+        }
+        return inputs.stream();
+    }
+
+    /**
+     * The baseline removes the first equal task and appends moved ones, so only
+     * what each vm holds is compared, not the order within it.
+     */
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void rescheduleMovesLikeTheBaseline(TaskDistribution distribution, int taskCount, int vmCount) {
+        List<List<Integer>> vms = Baseline.HAMM(Baseline.boxed(distribution.generate(taskCount, 5555)), vmCount);
+        List<List<Integer>> expected = Baseline.deepCopy(vms);
+        Baseline.reschedule(expected);
+
+        Schedule rescheduled = EHAMMSimulation.reschedule(Schedule.fromLists(vms));
+
+        assertEquals(sorted(expected), sorted(rescheduled.toLists()));
+        assertEquals(sorted(expected), sorted(EHAMMSimulation.reschedule(vms)));
+    }
+
+    private static List<List<Integer>> sorted(List<List<Integer>> vms) {
+        List<List<Integer>> sorted = Baseline.deepCopy(vms);
+        for (List<Integer> vm : sorted) {
+            vm.sort(null);
+        }
+        return sorted;
+    }
+
+    /**
+     * Starting from both HAMMs, the speed aware reschedule keeps every task and
+     * never makes the last VM finish later.
+     */
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void speedAwareRescheduleNeverRaisesTheMakespan(TaskDistribution distribution, int taskCount, int vmCount) {
+        int[] sizes = distribution.generate(taskCount, 5555);
+        double[] capacities = new double[vmCount];
+        for (int vm = 0; vm < vmCount; vm++) {
+            capacities[vm] = new double[] {100, 250, 250, 1000, 2500}[vm % 5];
+        }
+
+        for (Schedule schedule : new Schedule[] {HAMMSimulation.HAMM(sizes, vmCount), HAMMSimulation.HAMM(sizes, capacities)}) {
+            double before = makespan(schedule, capacities);
+            List<Integer> tasks = allSizes(schedule.toLists());
+
+            EHAMMSimulation.reschedule(schedule, capacities);
+
+            assertTrue(makespan(schedule, capacities) <= before, makespan(schedule, capacities) + " > " + before);
+            assertEquals(taskCount, schedule.taskCount());
+            assertEquals(tasks, allSizes(schedule.toLists()));
+        }
+    }
+
+    private static double makespan(Schedule schedule, double[] capacities) {
+        double makespan = 0;
+        for (int vm = 0; vm < capacities.length; vm++) {
+            makespan = Math.max(makespan, schedule.load(vm) / capacities[vm]);
+        }
+        return makespan;
+    }
+
+    private static List<Integer> allSizes(List<List<Integer>> vms) {
+        List<Integer> sizes = new ArrayList<>();
+        vms.forEach(sizes::addAll);
+        sizes.sort(null);
+        return sizes;
+    }
+}
@@ -0,0 +1,66 @@
+package hamm;
+
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Vm;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HAMMSimulationTest {
+
+    static Stream<Arguments> inputs() {
+        List<Arguments> inputs = new ArrayList<>();
+        for (TaskDistribution distribution : TaskDistribution.values()) {
+            for (int taskCount : new int[] {0, 1, 7, 100, 1000}) {
+                for (int vmCount : new int[] {1, 2, 6, 100}) {
+                    inputs.add(Arguments.of(distribution, taskCount, vmCount));
+                }
+            }
+        }
+        return inputs.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void hammAssignsLikeTheBaseline(TaskDistribution distribution, int taskCount, int vmCount) {
+        int[] sizes = distribution.generate(taskCount, 5555);
+
+        List<List<Integer>> expected = Baseline.HAMM(Baseline.boxed(sizes), vmCount);
+
+        assertEquals(expected, HAMMSimulation.HAMM(sizes, vmCount).toLists());
+        assertEquals(expected, HAMMSimulation.HAMM(Baseline.boxed(sizes), vmCount));
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void equalSizesBreakTiesLikeTheBaseline(TaskDistribution distribution, int taskCount, int vmCount) {
+        // many duplicates, so every tie between tasks and between vms gets hit
+        int[] sizes = distribution.generate(taskCount, 5555);
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] %= 5;
+        }
+
+        assertEquals(Baseline.HAMM(Baseline.boxed(sizes), vmCount), HAMMSimulation.HAMM(sizes, vmCount).toLists());
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void speedAwareHammOnIdenticalVmsIsHamm(TaskDistribution distribution, int taskCount, int vmCount) {
+        int[] sizes = distribution.generate(taskCount, 5555);
+        List<Vm> vms = new ArrayList<>();
+        for (int i = 0; i < vmCount; i++) {
+            vms.add(new Vm(i, 0, 250, 2, 512, 1000, 10000, "Xen", new CloudletSchedulerTimeShared()));
+        }
+
+        List<List<Integer>> expected = HAMMSimulation.HAMM(sizes, vmCount).toLists();
+
+        assertEquals(expected, HAMMSimulation.HAMM(sizes, vms).toLists());
+        assertEquals(expected, SchedulingAlgorithm.SPEED_HAMM.schedule(sizes, vmCount).toLists());
+    }
+}
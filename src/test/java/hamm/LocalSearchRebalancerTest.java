@@ -0,0 +1,118 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalSearchRebalancerTest {
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void stepsNeverRaiseTheMaximumLoadAndKeepEveryTask(TaskDistribution distribution) {
+        Schedule schedule = piledUp(distribution.generate(300, 5555), 6);
+        List<Integer> sizes = sizes(schedule);
+        LocalSearchRebalancer search = new LocalSearchRebalancer(3);
+
+        long max = maxLoad(schedule);
+        for (int step = 0; step < 1000 && !search.converged(); step++) {
+            search.rebalance(schedule, Long.MAX_VALUE, 1);
+
+            assertTrue(maxLoad(schedule) <= max, maxLoad(schedule) + " > " + max);
+            max = maxLoad(schedule);
+        }
+
+        assertTrue(search.converged());
+        assertEquals(300, schedule.taskCount());
+        assertEquals(sizes, sizes(schedule));
+    }
+
+    @Test
+    void maxIterationsStopsTheSearch() {
+        Schedule schedule = piledUp(TaskDistribution.UNIFORM.generate(300, 5555), 6);
+        LocalSearchRebalancer search = new LocalSearchRebalancer(4);
+
+        search.rebalance(schedule, Long.MAX_VALUE, 3);
+
+        assertEquals(3, search.iterations());
+        assertEquals(3, search.moves() + search.swaps());
+        assertFalse(search.converged());
+    }
+
+    @Test
+    void timeBudgetStopsTheSearch() {
+        Schedule schedule = piledUp(TaskDistribution.UNIFORM.generate(300, 5555), 6);
+        List<List<Integer>> before = schedule.toLists();
+        LocalSearchRebalancer search = new LocalSearchRebalancer(4);
+
+        search.rebalance(schedule, 0, Long.MAX_VALUE);
+
+        assertEquals(0, search.iterations());
+        assertFalse(search.converged());
+        assertEquals(before, schedule.toLists());
+    }
+
+    /**
+     * With every machine a candidate, a converged search leaves no task on the
+     * most loaded machine, and no pair of tasks with another machine, whose
+     * move or swap would narrow the gap between the two.
+     */
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void convergesOnlyWhenNoMoveOrSwapNarrowsTheGap(TaskDistribution distribution) {
+        for (int vmCount : new int[] {2, 3, 6}) {
+            Schedule schedule = SchedulingAlgorithm.EHAMM.schedule(distribution.generate(200, 5555), vmCount);
+            LocalSearchRebalancer search = new LocalSearchRebalancer(vmCount);
+
+            search.rebalance(schedule, Long.MAX_VALUE, Long.MAX_VALUE);
+
+            assertTrue(search.converged());
+            List<List<Integer>> vms = schedule.toLists();
+            int high = 0;
+            for (int vm = 1; vm < vmCount; vm++) {
+                if (schedule.load(vm) > schedule.load(high)) {
+                    high = vm;
+                }
+            }
+            for (int low = 0; low < vmCount; low++) {
+                long gap = schedule.load(high) - schedule.load(low);
+                for (int a : vms.get(high)) {
+                    assertFalse(0 < a && a < gap, "moving " + a + " narrows a gap of " + gap);
+                    for (int b : vms.get(low)) {
+                        assertFalse(0 < a - b && a - b < gap, "swapping " + a + " for " + b + " narrows a gap of " + gap);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Every task on the first VM, so the search has plenty to do. */
+    private static Schedule piledUp(int[] sizes, int vmCount) {
+        Schedule schedule = new Schedule(vmCount, sizes.length);
+        for (int size : sizes) {
+            schedule.assign(size, 0);
+        }
+        return schedule;
+    }
+
+    private static long maxLoad(Schedule schedule) {
+        long max = 0;
+        for (int vm = 0; vm < schedule.vmCount(); vm++) {
+            max = Math.max(max, schedule.load(vm));
+        }
+        return max;
+    }
+
+    private static List<Integer> sizes(Schedule schedule) {
+        List<Integer> sizes = new ArrayList<>();
+        schedule.toLists().forEach(sizes::addAll);
+        sizes.sort(null);
+        return sizes;
+    }
+}
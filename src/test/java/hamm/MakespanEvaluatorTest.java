@@ -0,0 +1,154 @@
+package hamm;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MakespanEvaluatorTest {
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * One PE at 100 MIPS shared by 100, 300 and 600 MI: all three run at
+     * 100/3 until the first is done at 3, the other two at 50 until 7, the
+     * last alone at 100 until 10.
+     */
+    @Test
+    void timeSharedCloudletsSplitTheMips() {
+        Schedule schedule = schedule(new int[] {300, 100, 600}, new int[] {0, 0, 0}, 1);
+
+        MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(schedule, new double[] {100}, new int[] {1}, 1);
+
+        assertEquals(7, evaluator.finishTime(0), EPSILON);
+        assertEquals(3, evaluator.finishTime(1), EPSILON);
+        assertEquals(10, evaluator.finishTime(2), EPSILON);
+        assertEquals(0, evaluator.startTime(2), EPSILON);
+        assertEquals(10, evaluator.busyTime(0), EPSILON);
+        assertEquals(10, evaluator.makespan(), EPSILON);
+    }
+
+    /**
+     * Two PEs at 100 MIPS and three one-PE cloudlets: each gets 200/3 MIPS, so
+     * the two 200 MI ones finish at 3. The 400 MI one then runs alone on one
+     * PE at 100 MIPS and needs 2 more.
+     */
+    @Test
+    void timeSharedCloudletsOutnumberingThePes() {
+        Schedule schedule = schedule(new int[] {200, 400, 200}, new int[] {0, 0, 0}, 1);
+
+        MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(schedule, new double[] {100}, new int[] {2}, 1);
+
+        assertEquals(3, evaluator.finishTime(0), EPSILON);
+        assertEquals(5, evaluator.finishTime(1), EPSILON);
+        assertEquals(3, evaluator.finishTime(2), EPSILON);
+        assertEquals(5, evaluator.makespan(), EPSILON);
+    }
+
+    /** Fewer cloudlets than PEs: each runs on a PE of its own at full speed. */
+    @Test
+    void timeSharedCloudletsFewerThanThePes() {
+        Schedule schedule = schedule(new int[] {500, 100, 50}, new int[] {0, 0, 1}, 2);
+
+        MakespanEvaluator evaluator = new MakespanEvaluator()
+                .evaluate(schedule, new double[] {100, 25}, new int[] {4, 1}, 1);
+
+        assertEquals(5, evaluator.finishTime(0), EPSILON);
+        assertEquals(1, evaluator.finishTime(1), EPSILON);
+        assertEquals(2, evaluator.finishTime(2), EPSILON);
+        assertEquals(5, evaluator.busyTime(0), EPSILON);
+        assertEquals(2, evaluator.busyTime(1), EPSILON);
+        assertEquals(5, evaluator.makespan(), EPSILON);
+    }
+
+    /**
+     * Two PEs at 100 MIPS run 100, 200, 300 and 400 MI shortest first, two at
+     * a time: 100 on [0, 1], 200 on [0, 2], 300 on [1, 4] and 400 on [2, 6].
+     */
+    @Test
+    void spaceSharedCloudletsRunShortestFirst() {
+        Schedule schedule = schedule(new int[] {400, 300, 200, 100, 700}, new int[] {0, 0, 0, 0, 1}, 2);
+
+        MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(schedule,
+                new double[] {100, 100}, new int[] {2, 1}, 1, new boolean[] {true, false});
+
+        assertEquals(2, evaluator.startTime(0), EPSILON);
+        assertEquals(6, evaluator.finishTime(0), EPSILON);
+        assertEquals(1, evaluator.startTime(1), EPSILON);
+        assertEquals(4, evaluator.finishTime(1), EPSILON);
+        assertEquals(0, evaluator.startTime(2), EPSILON);
+        assertEquals(2, evaluator.finishTime(2), EPSILON);
+        assertEquals(0, evaluator.startTime(3), EPSILON);
+        assertEquals(1, evaluator.finishTime(3), EPSILON);
+        assertEquals(6, evaluator.busyTime(0), EPSILON);
+        // the time shared vm next to it
+        assertEquals(7, evaluator.finishTime(4), EPSILON);
+        assertEquals(7, evaluator.makespan(), EPSILON);
+    }
+
+    /** Two-PE cloudlets on a four-PE space shared VM run two at a time. */
+    @Test
+    void spaceSharedMultiPeCloudlets() {
+        Schedule schedule = schedule(new int[] {100, 100, 100}, new int[] {0, 0, 0}, 1);
+
+        MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(schedule,
+                new double[] {50}, new int[] {4}, 2, new boolean[] {true});
+
+        assertEquals(2, evaluator.finishTime(0), EPSILON);
+        assertEquals(2, evaluator.finishTime(1), EPSILON);
+        assertEquals(4, evaluator.finishTime(2), EPSILON);
+        assertEquals(4, evaluator.makespan(), EPSILON);
+    }
+
+    @Test
+    void crossCheckComparesRunTimes() {
+        Schedule schedule = schedule(new int[] {300, 100, 600}, new int[] {0, 0, 0}, 1);
+        MakespanEvaluator evaluator = new MakespanEvaluator().evaluate(schedule, new double[] {100}, new int[] {1}, 1);
+        List<Cloudlet> simulated = new ArrayList<>();
+        simulated.add(new Ran(0, 300, 0.1, 7.1));
+        simulated.add(new Ran(1, 100, 0.1, 3.1));
+        simulated.add(new Ran(2, 600, 0.1, 10.1));
+
+        assertDoesNotThrow(() -> evaluator.crossCheck(simulated, 0.01));
+
+        simulated.set(2, new Ran(2, 600, 0.1, 12.1));
+        assertThrows(IllegalStateException.class, () -> evaluator.crossCheck(simulated, 0.01));
+        assertThrows(IllegalStateException.class, () -> evaluator.crossCheck(simulated.subList(0, 2), 0.01));
+    }
+
+    private static Schedule schedule(int[] sizes, int[] vms, int vmCount) {
+        Schedule schedule = new Schedule(vmCount, sizes.length);
+        for (int task = 0; task < sizes.length; task++) {
+            schedule.assign(sizes[task], vms[task]);
+        }
+        return schedule;
+    }
+
+    /** A cloudlet as CloudSim returns it, with its simulated start and finish. */
+    private static final class Ran extends Cloudlet {
+        private final double start;
+        private final double finish;
+
+        Ran(int id, long length, double start, double finish) {
+            super(id, length, 1, 300, 300, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+            this.start = start;
+            this.finish = finish;
+        }
+
+        @Override
+        public double getExecStartTime() {
+            return start;
+        }
+
+        @Override
+        public double getFinishTime() {
+            return finish;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesSurviveANewCache() throws IOException {
+        String key = ResultCache.key(1, 1000, 6, TaskDistribution.BIMODAL, SchedulingAlgorithm.EHAMM);
+        Schedule schedule = HAMMSimulation.HAMM(TaskDistribution.BIMODAL.generate(1000, 1), 6);
+        new ResultCache(dir, 1 << 20).put(key, new ResultCache.Entry(schedule, 12.5, 3.25, 0.75));
+
+        ResultCache cache = new ResultCache(dir, 1 << 20);
+        ResultCache.Entry entry = cache.get(key);
+
+        assertEquals(12.5, entry.makespan());
+        assertEquals(3.25, entry.loadVariance());
+        assertEquals(schedule.toLists(), entry.schedule().toLists());
+        assertEquals(1, cache.diskHits());
+    }
+
+    @Test
+    void damagedEntriesAreMissesAndGetDeleted() throws IOException {
+        String key = ResultCache.key(2, 500, 6, TaskDistribution.UNIFORM, SchedulingAlgorithm.HAMM);
+        Schedule schedule = HAMMSimulation.HAMM(TaskDistribution.UNIFORM.generate(500, 2), 6);
+        ResultCache.Entry entry = new ResultCache.Entry(schedule, 1, 2, 3);
+        new ResultCache(dir, 1 << 20).put(key, entry);
+        Path file;
+        try (Stream<Path> files = Files.walk(dir)) {
+            file = files.filter(path -> path.toString().endsWith(".bin")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (byte[] damaged : new byte[][] {
+                Arrays.copyOf(bytes, bytes.length / 2), Arrays.copyOf(bytes, 3), new byte[0], junkLength(bytes)}) {
+            Files.write(file, damaged);
+            ResultCache cache = new ResultCache(dir, 1 << 20);
+
+            assertNull(cache.get(key));
+            assertEquals(1, cache.misses());
+            assertFalse(Files.exists(file));
+
+            cache.put(key, entry);
+            assertNotNull(new ResultCache(dir, 1 << 20).get(key));
+        }
+    }
+
+    /** The entry with its key length, right after magic and format, made huge. */
+    private static byte[] junkLength(byte[] bytes) {
+        byte[] damaged = bytes.clone();
+        damaged[5] = damaged[6] = damaged[7] = (byte) 0xff;
+        damaged[8] = 0x7f;
+        return damaged;
+    }
+
+    /** Each generator is an enum constant body compiled to TaskDistribution$n. */
+    @Test
+    void editingAGeneratorMissesTheCache() throws IOException {
+        ResultCache cache = new ResultCache(dir, 1 << 20);
+        String key = ResultCache.key(1, 100, 6, TaskDistribution.HEAVY_TAILED, SchedulingAlgorithm.HAMM);
+        Schedule schedule = HAMMSimulation.HAMM(TaskDistribution.HEAVY_TAILED.generate(100, 1), 6);
+        cache.put(key, new ResultCache.Entry(schedule, 1, 1, 1));
+
+        for (String edited : new String[] {"hamm/TaskDistribution$2.class", "hamm/SchedulingAlgorithm$1.class",
+                "hamm/SweepRunner.class"}) {
+            String version = ResultCache.algorithmVersion(editing(edited));
+            String editedKey = ResultCache.key(1, 100, 6, TaskDistribution.HEAVY_TAILED, SchedulingAlgorithm.HAMM, version);
+
+            assertNotEquals(ResultCache.algorithmVersion(), version, edited);
+            assertNull(cache.get(editedKey), edited);
+        }
+        assertNotNull(cache.get(key));
+        assertEquals(ResultCache.algorithmVersion(), ResultCache.algorithmVersion(ResultCache.class.getClassLoader()));
+    }
+
+    /** A class loader that serves the class file name with its last byte changed. */
+    private static ClassLoader editing(String name) {
+        ClassLoader parent = ResultCache.class.getClassLoader();
+        return new ClassLoader(parent) {
+            @Override
+            public InputStream getResourceAsStream(String resource) {
+                InputStream in = parent.getResourceAsStream(resource);
+                if (in == null || !resource.equals(name)) {
+                    return in;
+                }
+                try (in) {
+                    byte[] bytes = in.readAllBytes();
+                    bytes[bytes.length - 1] ^= 1;
+                    return new ByteArrayInputStream(bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package hamm;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunMetricsTest {
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void loadVarianceIsTheVarianceOfTheLoads(TaskDistribution distribution) {
+        Schedule schedule = SchedulingAlgorithm.EHAMM.schedule(distribution.generate(1000, 5555), 6);
+        double[] mips = new double[6];
+        Arrays.fill(mips, 100);
+        int[] pes = new int[6];
+        Arrays.fill(pes, 1);
+        double mean = Arrays.stream(loads(schedule)).average().orElse(0);
+        double expected = Arrays.stream(loads(schedule)).map(load -> (load - mean) * (load - mean)).sum() / 5;
+
+        RunMetrics metrics = new RunMetrics().record(schedule, new MakespanEvaluator().evaluate(schedule, mips, pes, 1));
+
+        assertEquals(expected, metrics.loadVariance(), expected * 1e-12);
+        assertEquals(metrics.loadVariance(), RunMetrics.loadVariance(schedule));
+    }
+
+    private static double[] loads(Schedule schedule) {
+        double[] loads = new double[schedule.vmCount()];
+        for (int vm = 0; vm < loads.length; vm++) {
+            loads[vm] = schedule.load(vm);
+        }
+        return loads;
+    }
+}
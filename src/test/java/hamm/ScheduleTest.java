@@ -0,0 +1,74 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScheduleTest {
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void listsRoundTrip(TaskDistribution distribution) {
+        List<List<Integer>> vms = Baseline.HAMM(Baseline.boxed(distribution.generate(500, 5555)), 6);
+
+        Schedule schedule = Schedule.fromLists(vms);
+
+        assertEquals(vms, schedule.toLists());
+        assertEquals(500, schedule.taskCount());
+        for (int vm = 0; vm < vms.size(); vm++) {
+            assertEquals(vms.get(vm).stream().mapToLong(Integer::longValue).sum(), schedule.load(vm));
+            assertEquals(vms.get(vm).size(), schedule.taskCount(vm));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskDistribution.class)
+    void loadBalanceMatchesTheBaseline(TaskDistribution distribution) {
+        int[] sizes = distribution.generate(1000, 5555);
+        for (int vmCount : new int[] {2, 6, 100}) {
+            List<List<Integer>> vms = Baseline.HAMM(Baseline.boxed(sizes), vmCount);
+
+            double expected = Baseline.calculateLoadBalance(vms);
+
+            assertEquals(expected, HAMMSimulation.calculateLoadBalance(Schedule.fromLists(vms)));
+            assertEquals(expected, HAMMSimulation.calculateLoadBalance(vms));
+        }
+    }
+
+    @Test
+    void moveKeepsLoadsAndCounts() {
+        Schedule schedule = new Schedule(3, 0);
+        int a = schedule.assign(5, 0);
+        schedule.assign(7, 0);
+        schedule.assign(2, 2);
+
+        schedule.move(a, 1);
+
+        assertEquals(7, schedule.load(0));
+        assertEquals(5, schedule.load(1));
+        assertEquals(1, schedule.taskCount(0));
+        assertEquals(1, schedule.vmOf(a));
+        assertEquals(List.of(List.of(7), List.of(5), List.of(2)), schedule.toLists());
+    }
+
+    @Test
+    void tasksByVmKeepsAssignmentOrder() {
+        Schedule schedule = new Schedule(2, 4);
+        schedule.assign(1, 1);
+        schedule.assign(2, 0);
+        schedule.assign(3, 1);
+        schedule.assign(4, 0);
+        int[] offsets = new int[3];
+
+        int[] tasks = schedule.tasksByVm(offsets);
+
+        assertArrayEquals(new int[] {0, 2, 4}, offsets);
+        assertArrayEquals(new int[] {1, 3, 0, 2}, tasks);
+        assertEquals(schedule.toLists(), schedule.copy().toLists());
+    }
+}
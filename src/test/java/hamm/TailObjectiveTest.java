@@ -0,0 +1,49 @@
+package hamm;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TailObjectiveTest {
+
+    @ParameterizedTest
+    @EnumSource(Topology.Sharing.class)
+    void weightZeroIsPlainHammAndReschedule(Topology.Sharing sharing) {
+        TailObjective objective = new TailObjective(0, sharing);
+        int[] sizes = TaskDistribution.BIMODAL.generate(2000, 5555);
+
+        assertEquals(HAMMSimulation.HAMM(sizes, 6).toLists(), objective.HAMM(sizes, 6).toLists());
+        assertEquals(EHAMMSimulation.reschedule(HAMMSimulation.HAMM(sizes, 6)).toLists(),
+                objective.reschedule(HAMMSimulation.HAMM(sizes, 6)).toLists());
+    }
+
+    /** The objective is flowtime, so weighting it fully must not raise the mean completion time. */
+    @ParameterizedTest
+    @EnumSource(Topology.Sharing.class)
+    void fullWeightLowersTheMeanCompletionTime(Topology.Sharing sharing) {
+        int vmCount = 60;
+        int[] sizes = TaskDistribution.HEAVY_TAILED.generate(10000, 5555);
+        double[] mips = new double[vmCount];
+        int[] pes = new int[vmCount];
+        boolean[] spaceShared = new boolean[vmCount];
+        Arrays.fill(mips, 100);
+        Arrays.fill(pes, 1);
+        Arrays.fill(spaceShared, sharing == Topology.Sharing.SPACE_SHARED);
+        MakespanEvaluator evaluator = new MakespanEvaluator();
+
+        double[] means = new double[2];
+        for (int i = 0; i < 2; i++) {
+            TailObjective objective = new TailObjective(i, sharing);
+            Schedule schedule = objective.schedule(sizes, vmCount, SchedulingAlgorithm.EHAMM, RunMetrics.disabled());
+            assertEquals(sizes.length, schedule.taskCount());
+            means[i] = new RunMetrics().record(schedule, evaluator.evaluate(schedule, mips, pes, 1, spaceShared))
+                    .meanFlowtime();
+        }
+
+        assertTrue(means[1] <= means[0], means[1] + " > " + means[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskHeapsTest {
+
+    @Test
+    void pollMinTakesEachVmsTasksSmallestFirst() {
+        Schedule schedule = HAMMSimulation.HAMM(TaskDistribution.BIMODAL.generate(1000, 5555), 6);
+        TaskHeaps heaps = new TaskHeaps(schedule);
+
+        for (int vm = 0; vm < schedule.vmCount(); vm++) {
+            List<Integer> expected = new ArrayList<>(schedule.toLists().get(vm));
+            expected.sort(null);
+            List<Integer> polled = new ArrayList<>();
+            while (heaps.size(vm) > 0) {
+                int min = heaps.peekMin(vm);
+                assertEquals(min, heaps.pollMin(vm));
+                polled.add(schedule.taskSize(min));
+            }
+
+            assertEquals(expected, polled);
+        }
+    }
+
+    @Test
+    void movesKeepTheSmallestTaskOnEachVm() {
+        Random random = new Random(5555);
+        Schedule schedule = HAMMSimulation.HAMM(TaskDistribution.UNIFORM.generate(500, 5555), 4);
+        TaskHeaps heaps = new TaskHeaps(schedule);
+
+        for (int step = 0; step < 2000; step++) {
+            int from = random.nextInt(4);
+            int to = random.nextInt(4);
+            if (heaps.size(from) == 0) {
+                continue;
+            }
+            int task = heaps.pollMin(from);
+            schedule.move(task, to);
+            heaps.add(to, task);
+
+            for (int vm = 0; vm < 4; vm++) {
+                assertEquals(schedule.taskCount(vm), heaps.size(vm));
+                if (heaps.size(vm) > 0) {
+                    int smallest = schedule.toLists().get(vm).stream().mapToInt(Integer::intValue).min().getAsInt();
+                    assertEquals(smallest, schedule.taskSize(heaps.peekMin(vm)));
+                }
+            }
+        }
+    }
+}
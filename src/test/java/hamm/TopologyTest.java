@@ -0,0 +1,38 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopologyTest {
+
+    @Test
+    void countsHostsAndVms() {
+        Topology topology = Topology.parse(List.of(
+                "# two kinds of host",
+                "host small count=2 pes=1 mips=1000",
+                "host large count=1e2 pes=8 mips=2000",
+                "vm standard count=6 pes=1 mips=100",
+                "vm big count=3 pes=4 mips=1500"));
+
+        assertEquals(102, topology.hostCount());
+        assertEquals(9, topology.vmCount());
+    }
+
+    @Test
+    void rejectsATopologyWithoutHosts() {
+        assertThrows(IllegalArgumentException.class, () -> Topology.parse(List.of("vm v")));
+        assertThrows(IllegalArgumentException.class, () -> Topology.parse(List.of("host h count=0", "vm v")));
+    }
+
+    @Test
+    void rejectsAVmThatOnlyFitsAHostTypeWithoutHosts() {
+        assertThrows(IllegalArgumentException.class, () -> Topology.parse(List.of(
+                "host small count=4 pes=1",
+                "host large count=0 pes=8",
+                "vm big pes=4")));
+    }
+}
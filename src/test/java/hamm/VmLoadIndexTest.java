@@ -0,0 +1,100 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VmLoadIndexTest {
+
+    @Test
+    void countsTheLoadComparisonsItMakes() {
+        VmLoadIndex index = new VmLoadIndex(4);
+        assertEquals(0, index.comparisons());
+
+        // sifting vm 0 down compares vm 2 with vm 1 to pick the smaller child,
+        // then vm 1 and, one level down, vm 3 with vm 0
+        index.setLoad(0, 5);
+        assertEquals(3, index.comparisons());
+
+        // reading the least loaded vm compares nothing
+        assertEquals(1, index.leastLoaded());
+        assertEquals(3, index.comparisons());
+    }
+
+    @Test
+    void leastLoadedMatchesALinearScan() {
+        Random random = new Random(5555);
+        for (int vmCount : new int[] {1, 2, 6, 100}) {
+            long[] loads = new long[vmCount];
+            VmLoadIndex index = new VmLoadIndex(vmCount);
+            for (int step = 0; step < 10000; step++) {
+                int vm = random.nextInt(vmCount);
+                // a small range, so ties on load are common
+                long delta = random.nextInt(20) - 10;
+                loads[vm] += delta;
+                index.addLoad(vm, delta);
+
+                assertEquals(leastLoaded(loads, null), index.leastLoaded());
+                assertEquals(loads[vm], index.load(vm));
+            }
+        }
+    }
+
+    @Test
+    void insertAndRemoveKeepTheLeastLoaded() {
+        Random random = new Random(5555);
+        int capacity = 50;
+        long[] loads = new long[capacity];
+        boolean[] indexed = new boolean[capacity];
+        int size = 0;
+        VmLoadIndex index = VmLoadIndex.empty(capacity);
+        for (int step = 0; step < 10000; step++) {
+            int vm = random.nextInt(capacity);
+            if (!indexed[vm]) {
+                loads[vm] = random.nextInt(20);
+                index.insert(vm, loads[vm]);
+                indexed[vm] = true;
+                size++;
+            } else if (random.nextBoolean()) {
+                index.remove(vm);
+                indexed[vm] = false;
+                size--;
+            } else {
+                loads[vm] = random.nextInt(20);
+                index.setLoad(vm, loads[vm]);
+            }
+
+            assertEquals(size, index.size());
+            assertEquals(indexed[vm], index.contains(vm));
+            if (size > 0) {
+                assertEquals(leastLoaded(loads, indexed), index.leastLoaded());
+            }
+        }
+    }
+
+    @Test
+    void emptyIndexHasNoLeastLoaded() {
+        VmLoadIndex index = VmLoadIndex.empty(3);
+
+        assertThrows(NoSuchElementException.class, index::leastLoaded);
+        assertThrows(IllegalArgumentException.class, () -> {
+            index.insert(1, 0);
+            index.insert(1, 0);
+        });
+    }
+
+    /** The linear scan addToMinVM does, lowest index on ties. */
+    private static int leastLoaded(long[] loads, boolean[] indexed) {
+        int min = -1;
+        for (int vm = 0; vm < loads.length; vm++) {
+            if ((indexed == null || indexed[vm]) && (min < 0 || loads[vm] < loads[min])) {
+                min = vm;
+            }
+        }
+        return min;
+    }
+}
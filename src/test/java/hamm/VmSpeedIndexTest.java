@@ -0,0 +1,81 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VmSpeedIndexTest {
+
+    /** Checks both lookups against a scan of every VM over random updates. */
+    @Test
+    void lookupsMatchAFullScan() {
+        Random random = new Random(5555);
+        for (int round = 0; round < 200; round++) {
+            int vmCount = 1 + random.nextInt(40);
+            double[] capacities = new double[vmCount];
+            for (int vm = 0; vm < vmCount; vm++) {
+                // few distinct speeds, so classes hold several VMs and ties are common
+                capacities[vm] = 250 * (1 + random.nextInt(4));
+            }
+            VmSpeedIndex earliest = VmSpeedIndex.emptyEarliestFirst(capacities);
+            VmSpeedIndex latest = VmSpeedIndex.emptyLatestFirst(capacities);
+            long[] loads = new long[vmCount];
+            boolean[] present = new boolean[vmCount];
+
+            for (int step = 0; step < 300; step++) {
+                int vm = random.nextInt(vmCount);
+                int op = random.nextInt(4);
+                if (op == 0 && !present[vm]) {
+                    loads[vm] = random.nextInt(20) * 250L;
+                    present[vm] = true;
+                    earliest.insert(vm, loads[vm]);
+                    latest.insert(vm, loads[vm]);
+                } else if (op == 1 && present[vm]) {
+                    present[vm] = false;
+                    earliest.remove(vm);
+                    latest.remove(vm);
+                } else if (present[vm]) {
+                    long delta = random.nextInt(10) * 250L - (op == 2 ? Math.min(loads[vm], 1000) : 0);
+                    loads[vm] += delta;
+                    earliest.addLoad(vm, delta);
+                    latest.addLoad(vm, delta);
+                }
+
+                if (earliest.isEmpty()) {
+                    continue;
+                }
+                long taskSize = random.nextInt(8) * 250L;
+                assertEquals(scanEarliest(capacities, loads, present, taskSize), earliest.earliestFinish(taskSize));
+                assertEquals(scanLatest(capacities, loads, present), latest.latestFinish());
+            }
+        }
+    }
+
+    private static int scanEarliest(double[] capacities, long[] loads, boolean[] present, long taskSize) {
+        int best = -1;
+        double bestTime = Double.POSITIVE_INFINITY;
+        for (int vm = 0; vm < capacities.length; vm++) {
+            double time = (loads[vm] + taskSize) / capacities[vm];
+            if (present[vm] && time < bestTime) {
+                best = vm;
+                bestTime = time;
+            }
+        }
+        return best;
+    }
+
+    private static int scanLatest(double[] capacities, long[] loads, boolean[] present) {
+        int best = -1;
+        double bestTime = Double.NEGATIVE_INFINITY;
+        for (int vm = 0; vm < capacities.length; vm++) {
+            double time = loads[vm] / capacities[vm];
+            if (present[vm] && time > bestTime) {
+                best = vm;
+                bestTime = time;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,79 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkloadFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void iteratorReadsWhatWasWritten() throws IOException {
+        int[] sizes = TaskDistribution.HEAVY_TAILED.generate(10000, 5555);
+        Path path = dir.resolve("trace.bin");
+        WorkloadFile.write(path, sizes);
+
+        WorkloadFile trace = WorkloadFile.open(path);
+        PrimitiveIterator.OfInt iterator = trace.iterator();
+        int[] read = new int[sizes.length];
+        for (int i = 0; i < read.length; i++) {
+            read[i] = iterator.nextInt();
+        }
+
+        assertFalse(iterator.hasNext());
+        assertArrayEquals(sizes, read);
+        assertArrayEquals(sizes, trace.readInts());
+    }
+
+    @Test
+    void emptyTraceIteratesNothing() throws IOException {
+        Path path = dir.resolve("empty.bin");
+        WorkloadFile.write(path, new int[0]);
+
+        assertFalse(WorkloadFile.open(path).iterator().hasNext());
+    }
+
+    @Test
+    void unfinishedIteratorLeavesTheTraceFree() throws IOException {
+        Path path = dir.resolve("trace.bin");
+        WorkloadFile.write(path, new int[] {3, 1, 2});
+
+        PrimitiveIterator.OfInt iterator = WorkloadFile.open(path).iterator();
+        assertEquals(3, iterator.nextInt());
+        Files.delete(path);
+
+        // the mapping is still readable without the file or a channel behind it
+        assertEquals(1, iterator.nextInt());
+        assertThrows(IOException.class, () -> WorkloadFile.open(path).iterator());
+    }
+
+    @Test
+    void negativeIntSizesAreRejected() throws IOException {
+        Path path = dir.resolve("corrupt.bin");
+        ByteBuffer bytes = ByteBuffer.allocate(WorkloadFile.HEADER_BYTES + 12).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(WorkloadFile.MAGIC).putInt(4).putLong(3)
+                .putInt(3).putInt(-5).putInt(2);
+        Files.write(path, bytes.array());
+
+        WorkloadFile trace = WorkloadFile.open(path);
+        assertThrows(IllegalStateException.class, trace::readInts);
+        assertArrayEquals(new int[] {3}, trace.readInts(1));
+
+        PrimitiveIterator.OfInt iterator = trace.iterator();
+        assertEquals(3, iterator.nextInt());
+        assertThrows(IllegalStateException.class, iterator::nextInt);
+    }
+}
@@ -0,0 +1,90 @@
+package hamm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkloadImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvSkipsAHeaderLine() throws IOException {
+        WorkloadImporter importer = new WorkloadImporter(WorkloadImporter.Format.CSV, 1, 1);
+
+        int[] sizes = importInts(importer, "id,size", "1,30", "2, 7.6", "", "3,12");
+
+        assertArrayEquals(new int[] {30, 8, 12}, sizes);
+        assertEquals(1, importer.skipped());
+    }
+
+    @Test
+    void csvRejectsTextPastTheFirstLine() throws IOException {
+        WorkloadImporter importer = new WorkloadImporter(WorkloadImporter.Format.CSV, 0, 1);
+        Path in = trace("10", "size", "12");
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importTrace(in, dir.resolve("out.bin"), 4));
+    }
+
+    @Test
+    void swfSkipsCommentsAndJobsWithoutARunTime() throws IOException {
+        WorkloadImporter importer = new WorkloadImporter(WorkloadImporter.Format.SWF, 0, 2);
+
+        int[] sizes = importInts(importer,
+                "; Version: 2.2",
+                ";   MaxProcs: 64",
+                "1 0 5 100 4 -1 -1 4 100 -1 1 1 1 1 1 -1 -1 -1",
+                "2 10 0 -1 8 -1 -1 8 100 -1 0 1 1 1 1 -1 -1 -1",
+                "3 20 1 50 -1 -1 -1 2 100 -1 1 1 1 1 1 -1 -1 -1",
+                "4\t30   2  7  3 -1 -1 3 100 -1 1 1 1 1 1 -1 -1 -1");
+
+        // run time times processors times the scale, a missing processor count is one
+        assertArrayEquals(new int[] {800, 100, 42}, sizes);
+        assertEquals(3, importer.skipped());
+    }
+
+    @Test
+    void longTraceKeepsSizesBeyondAnInt() throws IOException {
+        WorkloadImporter importer = new WorkloadImporter(WorkloadImporter.Format.CSV, 0, 1);
+        Path out = dir.resolve("out.bin");
+
+        assertEquals(3, importer.importTrace(trace("5", "3000000000", "7"), out, 8));
+
+        WorkloadFile workload = WorkloadFile.open(out);
+        assertEquals(8, workload.elementBytes());
+        assertEquals(3, workload.count());
+        assertArrayEquals(new int[] {5}, workload.readInts(1));
+        assertThrows(IllegalStateException.class, workload::readInts);
+    }
+
+    @Test
+    void generateWritesTheDistributionsSizes() throws IOException {
+        Path out = dir.resolve("out.bin");
+
+        WorkloadImporter.generate(TaskDistribution.BIMODAL, 1000, 5555, out);
+
+        assertArrayEquals(TaskDistribution.BIMODAL.generate(1000, 5555), WorkloadFile.open(out).readInts());
+    }
+
+    private int[] importInts(WorkloadImporter importer, String... lines) throws IOException {
+        Path out = dir.resolve("out.bin");
+        long written = importer.importTrace(trace(lines), out, 4);
+        int[] sizes = WorkloadFile.open(out).readInts();
+        assertEquals(written, sizes.length);
+        return sizes;
+    }
+
+    private Path trace(String... lines) throws IOException {
+        return Files.write(dir.resolve("trace.txt"), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}